@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures startup time and time-to-first-message for each supported launch mode.
+ *
+ * <p>For every run the server is started on a free port, {@code /api/health} is polled until it
+ * answers, then a WebSocket client sends {@code join_room} and waits for {@code room_snapshot}.
+ * Both times are measured from process launch; medians are printed per mode.
+ *
+ * <pre>
+ * ./gradlew startupBenchmark
+ * java bench/StartupBenchmark.java build/libs/echo-room-server-0.1.0.jar build/cds [runs]
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: StartupBenchmark <boot-jar> <cds-dir> [runs]");
+            System.exit(2);
+        }
+        Path bootJar = Path.of(args[0]).toAbsolutePath();
+        Path cdsDirectory = Path.of(args[1]).toAbsolutePath();
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("jar", List.of(java, "-jar", bootJar.toString()));
+        if (Files.exists(cdsDirectory.resolve("application.jsa"))) {
+            String archive = "-XX:SharedArchiveFile=" + cdsDirectory.resolve("application.jsa");
+            String app = cdsDirectory.resolve("app.jar").toString();
+            modes.put("cds", List.of(java, archive, "-jar", app));
+            modes.put("cds+warmup", List.of(java, archive, "-Decho-room.warmup.enabled=true", "-jar", app));
+        } else {
+            System.err.println("No CDS archive in " + cdsDirectory + "; run ./gradlew cdsArchive first.");
+        }
+
+        System.out.printf("%-12s %12s %22s%n", "mode", "startup ms", "first message ms");
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            List<Long> startup = new ArrayList<>();
+            List<Long> firstMessage = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                long[] result = measure(mode.getValue());
+                startup.add(result[0]);
+                firstMessage.add(result[1]);
+            }
+            System.out.printf("%-12s %12d %22d%n", mode.getKey(), median(startup), median(firstMessage));
+        }
+    }
+
+    private static long[] measure(List<String> command) throws Exception {
+        int port = freePort();
+        List<String> fullCommand = new ArrayList<>(command);
+        fullCommand.add("--server.port=" + port);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        long launchedAt = System.nanoTime();
+        Process process = new ProcessBuilder(fullCommand)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            awaitHealthy(client, port, launchedAt);
+            long startupMillis = elapsedMillis(launchedAt);
+
+            CompletableFuture<Void> snapshot = new CompletableFuture<>();
+            WebSocket socket = client.newWebSocketBuilder()
+                .buildAsync(URI.create("ws://127.0.0.1:" + port + "/ws"), new SnapshotListener(snapshot))
+                .get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            socket.sendText(
+                "{\"type\":\"join_room\",\"payload\":{\"roomId\":\"bench\",\"userId\":\"u-bench\",\"displayName\":\"Bench\"}}",
+                true
+            );
+            snapshot.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            long firstMessageMillis = elapsedMillis(launchedAt);
+            socket.abort();
+
+            return new long[] {startupMillis, firstMessageMillis};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void awaitHealthy(HttpClient client, int port, long launchedAt) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/health"))
+            .timeout(Duration.ofSeconds(1))
+            .build();
+        while (elapsedMillis(launchedAt) < TIMEOUT.toMillis()) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException _error) {
+                // Not listening yet.
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Server did not become healthy within " + TIMEOUT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long elapsedMillis(long startedAt) {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static final class SnapshotListener implements WebSocket.Listener {
+
+        private final CompletableFuture<Void> snapshot;
+        private final StringBuilder buffer = new StringBuilder();
+
+        private SnapshotListener(CompletableFuture<Void> snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                if (buffer.indexOf("\"room_snapshot\"") >= 0) {
+                    snapshot.complete(null);
+                }
+                buffer.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            snapshot.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.echoroom.server.ai;
+
+import com.echoroom.server.ai.AIService.AIContext;
+import com.echoroom.server.ai.AIService.Exchange;
+import com.echoroom.server.room.RoomLifecycleListener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-room AI conversation buffer. Each room keeps its latest exchanges verbatim, bounded by
+ * count and characters; exchanges pushed out of that window are folded into a running summary
+ * on a background executor. A room's buffer exists from when the room opens until it closes.
+ *
+ * <p>An AI call can outlive its room, and the same room ID can be reopened by other people before
+ * the reply arrives. Callers therefore take the {@link Conversation} once, read the context from it
+ * and record the reply into that same instance; a reply for a closed room lands in a buffer nobody
+ * reads any more instead of in whatever conversation holds the room ID now.
+ */
+@Component
+public class AIContextStore implements RoomLifecycleListener, AutoCloseable {
+
+    private static final String SUMMARY_SEPARATOR = "\n";
+
+    private final int maxExchanges;
+    private final int maxChars;
+    private final int maxSummaryChars;
+    private final Executor compactionExecutor;
+    private final ExecutorService ownedExecutor;
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AIContextStore(
+        @Value("${echo-room.ai.context.max-exchanges:8}") int maxExchanges,
+        @Value("${echo-room.ai.context.max-chars:4000}") int maxChars,
+        @Value("${echo-room.ai.context.max-summary-chars:1000}") int maxSummaryChars
+    ) {
+        this(maxExchanges, maxChars, maxSummaryChars, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ai-context-compactor");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public AIContextStore(int maxExchanges, int maxChars, int maxSummaryChars, Executor compactionExecutor) {
+        this.maxExchanges = Math.max(1, maxExchanges);
+        this.maxChars = Math.max(1, maxChars);
+        this.maxSummaryChars = Math.max(0, maxSummaryChars);
+        this.compactionExecutor = compactionExecutor;
+        this.ownedExecutor = compactionExecutor instanceof ExecutorService executorService ? executorService : null;
+    }
+
+    /**
+     * The room's current conversation, or a detached one that is never read if the room is not open.
+     */
+    public Conversation conversationFor(String roomId) {
+        Conversation conversation = conversations.get(roomId);
+        return conversation == null ? new Conversation() : conversation;
+    }
+
+    public AIContext contextFor(String roomId) {
+        Conversation conversation = conversations.get(roomId);
+        return conversation == null ? AIContext.EMPTY : contextOf(conversation);
+    }
+
+    public AIContext contextOf(Conversation conversation) {
+        synchronized (conversation) {
+            return new AIContext(conversation.summary, List.copyOf(conversation.recent));
+        }
+    }
+
+    public void record(Conversation conversation, String userId, String prompt, String reply) {
+        Exchange exchange = new Exchange(userId, truncate(prompt), truncate(reply));
+
+        boolean scheduleCompaction;
+        synchronized (conversation) {
+            conversation.recent.addLast(exchange);
+            conversation.recentChars += exchange.length();
+            while (conversation.recent.size() > maxExchanges || conversation.recentChars > maxChars) {
+                Exchange evicted = conversation.recent.removeFirst();
+                conversation.recentChars -= evicted.length();
+                conversation.evicted.add(evicted);
+                conversation.evictedChars += evicted.length();
+            }
+            // If the compactor falls behind, forget the oldest evictions rather than grow without bound.
+            while (conversation.evictedChars > maxChars) {
+                Exchange dropped = conversation.evicted.remove(0);
+                conversation.evictedChars -= dropped.length();
+            }
+            scheduleCompaction = !conversation.evicted.isEmpty() && !conversation.compacting;
+            if (scheduleCompaction) {
+                conversation.compacting = true;
+            }
+        }
+
+        if (scheduleCompaction) {
+            compactionExecutor.execute(() -> compact(conversation));
+        }
+    }
+
+    @Override
+    public void onRoomOpened(String roomId) {
+        conversations.putIfAbsent(roomId, new Conversation());
+    }
+
+    @Override
+    public void onRoomClosed(String roomId) {
+        conversations.remove(roomId);
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+
+    int roomCount() {
+        return conversations.size();
+    }
+
+    private void compact(Conversation conversation) {
+        while (true) {
+            String summary;
+            List<Exchange> batch;
+            synchronized (conversation) {
+                if (conversation.evicted.isEmpty()) {
+                    conversation.compacting = false;
+                    return;
+                }
+                summary = conversation.summary;
+                batch = new ArrayList<>(conversation.evicted);
+                conversation.evicted.clear();
+                conversation.evictedChars = 0;
+            }
+
+            String compacted = summarize(summary, batch);
+
+            synchronized (conversation) {
+                conversation.summary = compacted;
+            }
+        }
+    }
+
+    /**
+     * Extractive summary: one line per exchange, oldest lines trimmed first to stay within budget.
+     * A model-backed {@link AIService} can replace this without changing the buffer bookkeeping.
+     */
+    private String summarize(String summary, List<Exchange> batch) {
+        StringBuilder builder = new StringBuilder(summary);
+        for (Exchange exchange : batch) {
+            if (!builder.isEmpty()) {
+                builder.append(SUMMARY_SEPARATOR);
+            }
+            builder.append(exchange.userId()).append(": ").append(exchange.prompt());
+        }
+
+        int overflow = builder.length() - maxSummaryChars;
+        if (overflow <= 0) {
+            return builder.toString();
+        }
+        int cut = builder.indexOf(SUMMARY_SEPARATOR, overflow);
+        return cut < 0 ? builder.substring(overflow) : builder.substring(cut + SUMMARY_SEPARATOR.length());
+    }
+
+    private String truncate(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Prompt and reply share the room budget, so neither may take more than half of it.
+        int limit = Math.max(1, maxChars / 2);
+        return value.length() <= limit ? value : value.substring(0, limit);
+    }
+
+    public static final class Conversation {
+        private final ArrayDeque<Exchange> recent = new ArrayDeque<>();
+        private final List<Exchange> evicted = new ArrayList<>();
+        private int recentChars;
+        private int evictedChars;
+        private String summary = "";
+        private boolean compacting;
+
+        private Conversation() {
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package com.echoroom.server.ai;
 
+import java.util.List;
+
 public interface AIService {
 
     AIReply reply(AIRequest request);
 
-    record AIRequest(String roomId, String userId, String prompt) {
+    record AIRequest(String roomId, String userId, String prompt, AIContext context) {
     }
 
     record AIReply(String text) {
     }
+
+    /**
+     * Conversation state for a room: a running summary of older exchanges plus the most recent ones verbatim.
+     */
+    record AIContext(String summary, List<Exchange> recentExchanges) {
+
+        public static final AIContext EMPTY = new AIContext("", List.of());
+    }
+
+    record Exchange(String userId, String prompt, String reply) {
+
+        int length() {
+            return prompt.length() + reply.length();
+        }
+    }
 }
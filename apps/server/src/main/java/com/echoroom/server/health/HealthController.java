@@ -1,7 +1,10 @@
 package com.echoroom.server.health;
 
+import com.echoroom.server.health.ServerLoadMetrics.LoadSnapshot;
 import java.time.Instant;
 import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -10,12 +13,29 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api")
 public class HealthController {
 
+    private final ServerLoadMetrics serverLoadMetrics;
+
+    public HealthController(ServerLoadMetrics serverLoadMetrics) {
+        this.serverLoadMetrics = serverLoadMetrics;
+    }
+
+    /**
+     * Answers 503 while the node is busy so a proxy health check stops sending it new sessions.
+     */
     @GetMapping("/health")
-    public Map<String, Object> health() {
-        return Map.of(
-            "status", "ok",
+    public ResponseEntity<Map<String, Object>> health() {
+        LoadSnapshot load = serverLoadMetrics.snapshot();
+        HttpStatus status = "busy".equals(load.status()) ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK;
+        return ResponseEntity.status(status).body(Map.of(
+            "status", load.status(),
             "service", "echo-room-server",
-            "timestamp", Instant.now().toString()
-        );
+            "timestamp", Instant.now().toString(),
+            "load", load
+        ));
+    }
+
+    @GetMapping("/load")
+    public LoadSnapshot load() {
+        return serverLoadMetrics.snapshot();
     }
 }
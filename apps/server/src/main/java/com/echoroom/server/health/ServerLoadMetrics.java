@@ -0,0 +1,265 @@
+package com.echoroom.server.health;
+
+import com.echoroom.server.room.RoomStateStore;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Live load counters for this node. Every value is maintained incrementally on the
+ * hot path so that reading a snapshot never scans sessions or rooms.
+ *
+ * <p>{@code status} and {@code weight} follow the most loaded of four signals, each scaled
+ * against its limit: worker saturation, outbound backlog, recent outbound queueing delay and
+ * AI backlog. WebSocket handlers finish in well under a millisecond, so worker saturation
+ * alone stays near zero until long after clients feel the delay; the queues fill first.
+ */
+@Component
+public class ServerLoadMetrics {
+
+    private static final int RATE_WINDOW_SECONDS = 10;
+    private static final double BUSY_THRESHOLD = 0.8;
+    private static final double DELAY_EWMA_ALPHA = 0.2;
+
+    private final RoomStateStore roomStateStore;
+    private final int workerCapacity;
+    private final int maxOutboundBacklog;
+    private final double maxQueueDelayMillis;
+    private final int maxAiBacklog;
+    private final LongSupplier clockMillis;
+
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final AtomicInteger inFlightMessages = new AtomicInteger();
+    private final AtomicInteger outboundBacklog = new AtomicInteger();
+    private final AtomicInteger aiBacklog = new AtomicInteger();
+    private final LongAdder inboundFramesTotal = new LongAdder();
+    private final RateWindow inboundRate = new RateWindow(RATE_WINDOW_SECONDS);
+    private final Map<String, QueueDelay> outboundQueueDelay = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> outboundDropped = new ConcurrentHashMap<>();
+
+    public ServerLoadMetrics(RoomStateStore roomStateStore, int workerCapacity) {
+        this(roomStateStore, workerCapacity, System::currentTimeMillis);
+    }
+
+    public ServerLoadMetrics(RoomStateStore roomStateStore, int workerCapacity, LongSupplier clockMillis) {
+        this(roomStateStore, workerCapacity, 1000, Duration.ofMillis(50), 16, clockMillis);
+    }
+
+    @Autowired
+    public ServerLoadMetrics(
+        RoomStateStore roomStateStore,
+        @Value("${server.tomcat.threads.max:200}") int workerCapacity,
+        @Value("${echo-room.load.max-outbound-backlog:1000}") int maxOutboundBacklog,
+        @Value("${echo-room.load.max-queue-delay:50ms}") Duration maxQueueDelay,
+        @Value("${echo-room.load.max-ai-backlog:16}") int maxAiBacklog
+    ) {
+        this(roomStateStore, workerCapacity, maxOutboundBacklog, maxQueueDelay, maxAiBacklog, System::currentTimeMillis);
+    }
+
+    public ServerLoadMetrics(
+        RoomStateStore roomStateStore,
+        int workerCapacity,
+        int maxOutboundBacklog,
+        Duration maxQueueDelay,
+        int maxAiBacklog,
+        LongSupplier clockMillis
+    ) {
+        this.roomStateStore = roomStateStore;
+        this.workerCapacity = Math.max(1, workerCapacity);
+        this.maxOutboundBacklog = Math.max(1, maxOutboundBacklog);
+        this.maxQueueDelayMillis = Math.max(1, maxQueueDelay.toMillis());
+        this.maxAiBacklog = Math.max(1, maxAiBacklog);
+        this.clockMillis = clockMillis;
+    }
+
+    public void sessionOpened() {
+        openSessions.incrementAndGet();
+    }
+
+    public void sessionClosed() {
+        openSessions.decrementAndGet();
+    }
+
+    public void inboundStarted() {
+        inboundFramesTotal.increment();
+        inboundRate.record(clockMillis.getAsLong());
+        inFlightMessages.incrementAndGet();
+    }
+
+    public void inboundFinished() {
+        inFlightMessages.decrementAndGet();
+    }
+
+    public void outboundQueued() {
+        outboundBacklog.incrementAndGet();
+    }
+
+    public void outboundDrained() {
+        outboundBacklog.decrementAndGet();
+    }
+
+    public void outboundDelivered(String priorityClass, long queueDelayNanos) {
+        outboundQueueDelay.computeIfAbsent(priorityClass, _key -> new QueueDelay()).record(queueDelayNanos, clockMillis.getAsLong());
+    }
+
+    public void outboundDropped(String priorityClass) {
+        outboundDropped.computeIfAbsent(priorityClass, _key -> new LongAdder()).increment();
+    }
+
+    public void aiRequestStarted() {
+        aiBacklog.incrementAndGet();
+    }
+
+    public void aiRequestFinished() {
+        aiBacklog.decrementAndGet();
+    }
+
+    public LoadSnapshot snapshot() {
+        long nowMillis = clockMillis.getAsLong();
+        int inFlight = inFlightMessages.get();
+        int backlog = outboundBacklog.get();
+        int aiWaiting = aiBacklog.get();
+        Map<String, QueueDelaySnapshot> queueDelay = new TreeMap<>();
+        double recentDelayMillis = 0;
+        for (Map.Entry<String, QueueDelay> entry : outboundQueueDelay.entrySet()) {
+            QueueDelaySnapshot delay = entry.getValue().snapshot();
+            queueDelay.put(entry.getKey(), delay);
+            // A delay measured before traffic stopped says nothing about the node now.
+            if (nowMillis - entry.getValue().lastRecordedMillis <= RATE_WINDOW_SECONDS * 1000L) {
+                recentDelayMillis = Math.max(recentDelayMillis, delay.ewmaMillis());
+            }
+        }
+        Map<String, Long> dropped = new TreeMap<>();
+        outboundDropped.forEach((priorityClass, frames) -> dropped.put(priorityClass, frames.sum()));
+
+        double saturation = Math.min(1.0, (double) inFlight / workerCapacity);
+        double pressure = Math.min(1.0, highest(
+            saturation,
+            (double) backlog / maxOutboundBacklog,
+            recentDelayMillis / maxQueueDelayMillis,
+            (double) aiWaiting / maxAiBacklog
+        ));
+        return new LoadSnapshot(
+            pressure >= BUSY_THRESHOLD ? "busy" : "ok",
+            openSessions.get(),
+            roomStateStore.roomCount(),
+            inboundFramesTotal.sum(),
+            inboundRate.perSecond(clockMillis.getAsLong()),
+            backlog,
+            queueDelay,
+            dropped,
+            inFlight,
+            workerCapacity,
+            saturation,
+            aiWaiting,
+            pressure,
+            (int) Math.round((1.0 - pressure) * 100)
+        );
+    }
+
+    private static double highest(double... values) {
+        double highest = 0;
+        for (double value : values) {
+            highest = Math.max(highest, value);
+        }
+        return highest;
+    }
+
+    public record LoadSnapshot(
+        String status,
+        int sessions,
+        int rooms,
+        long inboundFramesTotal,
+        double inboundFramesPerSecond,
+        int outboundBacklog,
+        Map<String, QueueDelaySnapshot> outboundQueueDelay,
+        Map<String, Long> outboundDropped,
+        int inFlightMessages,
+        int workerCapacity,
+        double workerSaturation,
+        int aiBacklog,
+        double pressure,
+        int weight
+    ) {
+    }
+
+    public record QueueDelaySnapshot(long frames, double ewmaMillis, double maxMillis) {
+    }
+
+    private static final class QueueDelay {
+
+        private final LongAdder frames = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong ewmaNanosBits = new AtomicLong(Double.doubleToRawLongBits(0.0));
+        private volatile long lastRecordedMillis;
+
+        private void record(long delayNanos, long nowMillis) {
+            lastRecordedMillis = nowMillis;
+            frames.increment();
+            maxNanos.accumulateAndGet(delayNanos, Math::max);
+            ewmaNanosBits.updateAndGet(bits -> {
+                double current = Double.longBitsToDouble(bits);
+                return Double.doubleToRawLongBits(current + DELAY_EWMA_ALPHA * (delayNanos - current));
+            });
+        }
+
+        private QueueDelaySnapshot snapshot() {
+            return new QueueDelaySnapshot(
+                frames.sum(),
+                Double.longBitsToDouble(ewmaNanosBits.get()) / 1_000_000.0,
+                maxNanos.get() / 1_000_000.0
+            );
+        }
+    }
+
+    /**
+     * Fixed ring of per-second buckets. It has one slot more than the window so the current,
+     * still-filling second never overwrites the oldest completed one. Concurrent writers that
+     * race on a bucket rollover may lose a handful of increments, which is acceptable for load
+     * reporting.
+     */
+    private static final class RateWindow {
+
+        private final int seconds;
+        private final AtomicLongArray stamps;
+        private final AtomicLongArray counts;
+
+        private RateWindow(int seconds) {
+            this.seconds = seconds;
+            this.stamps = new AtomicLongArray(seconds + 1);
+            this.counts = new AtomicLongArray(seconds + 1);
+        }
+
+        private void record(long nowMillis) {
+            long second = nowMillis / 1000;
+            int index = (int) (second % stamps.length());
+            long stamp = stamps.get(index);
+            if (stamp != second && stamps.compareAndSet(index, stamp, second)) {
+                counts.set(index, 0);
+            }
+            counts.incrementAndGet(index);
+        }
+
+        private double perSecond(long nowMillis) {
+            long currentSecond = nowMillis / 1000;
+            long total = 0;
+            for (int index = 0; index < stamps.length(); index++) {
+                long age = currentSecond - stamps.get(index);
+                // Only completed seconds count, so a half-filled current bucket does not skew the rate.
+                if (age >= 1 && age <= seconds) {
+                    total += counts.get(index);
+                }
+            }
+            return (double) total / seconds;
+        }
+    }
+}
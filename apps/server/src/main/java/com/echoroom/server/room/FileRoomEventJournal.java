@@ -0,0 +1,410 @@
+package com.echoroom.server.room;
+
+import com.echoroom.server.room.RoomModels.Participant;
+import com.echoroom.server.room.RoomModels.ParticipantSession;
+import com.echoroom.server.room.RoomModels.RoomEvent;
+import com.echoroom.server.room.RoomModels.RoomEventType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RoomEventJournal} backed by generation-numbered log segments plus a compacted
+ * snapshot in a local directory.
+ *
+ * <p>Callers only enqueue events. A single writer thread drains the queue in batches,
+ * writes each batch with one {@link FileChannel#write} and one {@code force} (group commit),
+ * and applies it to a shadow copy of the room state. Every {@code snapshotEvery} events the
+ * shadow state is written as {@code snapshot.bin} for generation {@code G + 1}, a new segment
+ * is started and segment {@code G} is deleted. Recovery loads the snapshot and replays any
+ * segment of the same or a later generation, stopping at the first torn record. Recovered seats are
+ * then re-keyed under {@link RoomEventJournal#recoveredSessionId} before anything else is written.
+ */
+public final class FileRoomEventJournal implements RoomEventJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(FileRoomEventJournal.class);
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x45524a53;
+    private static final RoomEvent CLOSE_MARKER = new RoomEvent(RoomEventType.LEAVE, null, null, null, null, false);
+
+    private final Path directory;
+    private final int batchSize;
+    private final int snapshotEvery;
+    private final SegmentOpener segmentOpener;
+    private final BlockingQueue<RoomEvent> pending = new LinkedBlockingQueue<>();
+    private final LinkedHashMap<String, ParticipantSession> state = new LinkedHashMap<>();
+    private final List<ParticipantSession> recovered;
+    private final Thread writer;
+
+    private long generation;
+    private FileChannel segment;
+    private int eventsSinceSnapshot;
+    private volatile boolean closed;
+
+    public FileRoomEventJournal(Path directory, int batchSize, int snapshotEvery) throws IOException {
+        this(directory, batchSize, snapshotEvery, path -> FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        ));
+    }
+
+    FileRoomEventJournal(Path directory, int batchSize, int snapshotEvery, SegmentOpener segmentOpener) throws IOException {
+        this.directory = directory;
+        this.batchSize = Math.max(1, batchSize);
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.segmentOpener = segmentOpener;
+
+        Files.createDirectories(directory);
+        long startGeneration = readSnapshot();
+        for (Path path : segmentsFrom(startGeneration)) {
+            replaySegment(path);
+        }
+        rekeyRecoveredSessions(UUID.randomUUID().toString());
+        this.recovered = List.copyOf(state.values());
+
+        // Fold whatever was replayed into a fresh snapshot so the next start only reads one file.
+        this.generation = Math.max(startGeneration, latestSegmentGeneration());
+        compact();
+
+        this.writer = new Thread(this::drainLoop, "room-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void append(RoomEvent event) {
+        if (closed) {
+            return;
+        }
+        pending.add(event);
+    }
+
+    @Override
+    public List<ParticipantSession> recover() {
+        return recovered;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.add(CLOSE_MARKER);
+        try {
+            writer.join();
+        } catch (InterruptedException _error) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            segment.close();
+        } catch (IOException error) {
+            log.warn("Failed to close room journal segment", error);
+        }
+    }
+
+    private void drainLoop() {
+        List<RoomEvent> batch = new ArrayList<>(batchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException _error) {
+                break;
+            }
+            pending.drainTo(batch, batchSize - 1);
+
+            int markerIndex = batch.indexOf(CLOSE_MARKER);
+            if (markerIndex >= 0) {
+                batch.subList(markerIndex, batch.size()).clear();
+                stopping = true;
+            }
+
+            try {
+                writeBatch(batch);
+            } catch (IOException error) {
+                log.error("Failed to write {} room journal events", batch.size(), error);
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<RoomEvent> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(batch.size() * 96);
+        DataOutputStream out = new DataOutputStream(buffer);
+        for (RoomEvent event : batch) {
+            byte[] record = encodeEvent(event);
+            out.writeInt(record.length);
+            out.writeInt(checksum(record));
+            out.write(record);
+        }
+
+        // A failed batch must not leave a torn record mid-segment: replay stops at the first bad
+        // record, which would hide every batch written after it. Nor may it reach the shadow state,
+        // or the next snapshot would persist events that never became durable.
+        long start = segment.position();
+        try {
+            writeFully(segment, ByteBuffer.wrap(buffer.toByteArray()));
+            segment.force(false);
+        } catch (IOException error) {
+            try {
+                segment.truncate(start);
+                segment.position(start);
+            } catch (IOException truncateError) {
+                error.addSuppressed(truncateError);
+            }
+            throw error;
+        }
+        batch.forEach(this::apply);
+
+        eventsSinceSnapshot += batch.size();
+        if (eventsSinceSnapshot >= snapshotEvery) {
+            compact();
+        }
+    }
+
+    private void apply(RoomEvent event) {
+        switch (event.type()) {
+            case JOIN -> {
+                state.remove(event.sessionId());
+                state.put(event.sessionId(), new ParticipantSession(
+                    event.roomId(),
+                    event.sessionId(),
+                    new Participant(event.userId(), event.displayName(), event.muted())
+                ));
+            }
+            case LEAVE -> state.remove(event.sessionId());
+            case MUTE -> state.computeIfPresent(event.sessionId(), (_key, current) -> new ParticipantSession(
+                current.roomId(),
+                current.sessionId(),
+                new Participant(current.participant().userId(), current.participant().displayName(), event.muted())
+            ));
+        }
+    }
+
+    private void rekeyRecoveredSessions(String epoch) {
+        List<ParticipantSession> replayed = new ArrayList<>(state.values());
+        state.clear();
+        for (ParticipantSession participantSession : replayed) {
+            String sessionId = RoomEventJournal.recoveredSessionId(epoch, participantSession.sessionId());
+            state.put(sessionId, new ParticipantSession(participantSession.roomId(), sessionId, participantSession.participant()));
+        }
+    }
+
+    private void compact() throws IOException {
+        long nextGeneration = generation + 1;
+        writeSnapshot(nextGeneration);
+
+        FileChannel previous = segment;
+        segment = segmentOpener.open(segmentPath(nextGeneration));
+        if (previous != null) {
+            previous.close();
+        }
+        for (Path stale : segmentsBefore(nextGeneration)) {
+            Files.deleteIfExists(stale);
+        }
+
+        generation = nextGeneration;
+        eventsSinceSnapshot = 0;
+    }
+
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeLong(snapshotGeneration);
+        out.writeInt(state.size());
+        for (ParticipantSession participantSession : state.values()) {
+            writeString(out, participantSession.roomId());
+            writeString(out, participantSession.sessionId());
+            writeString(out, participantSession.participant().userId());
+            writeString(out, participantSession.participant().displayName());
+            out.writeBoolean(participantSession.participant().muted());
+        }
+        byte[] body = buffer.toByteArray();
+
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            writeFully(channel, ByteBuffer.wrap(body));
+            writeFully(channel, ByteBuffer.allocate(Integer.BYTES).putInt(0, checksum(body)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < Integer.BYTES) {
+            throw new IOException("Room journal snapshot is truncated: " + path);
+        }
+        int bodyLength = bytes.length - Integer.BYTES;
+        int expected = ByteBuffer.wrap(bytes, bodyLength, Integer.BYTES).getInt();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bodyLength);
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Room journal snapshot checksum mismatch: " + path);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bodyLength));
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a room journal snapshot: " + path);
+        }
+        long snapshotGeneration = in.readLong();
+        int count = in.readInt();
+        for (int index = 0; index < count; index++) {
+            String roomId = readString(in);
+            String sessionId = readString(in);
+            Participant participant = new Participant(readString(in), readString(in), in.readBoolean());
+            state.put(sessionId, new ParticipantSession(roomId, sessionId, participant));
+        }
+        return snapshotGeneration;
+    }
+
+    private void replaySegment(Path path) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (bytes.remaining() >= Integer.BYTES * 2) {
+            int length = bytes.getInt();
+            int expected = bytes.getInt();
+            if (length < 0 || length > bytes.remaining()) {
+                log.warn("Ignoring torn record at the end of {}", path);
+                return;
+            }
+            byte[] record = new byte[length];
+            bytes.get(record);
+            if (checksum(record) != expected) {
+                log.warn("Ignoring corrupt record at the end of {}", path);
+                return;
+            }
+            apply(decodeEvent(record));
+        }
+    }
+
+    private List<Path> segmentsFrom(long fromGeneration) throws IOException {
+        return listSegments().stream().filter(path -> generationOf(path) >= fromGeneration).toList();
+    }
+
+    private List<Path> segmentsBefore(long beforeGeneration) throws IOException {
+        return listSegments().stream().filter(path -> generationOf(path) < beforeGeneration).toList();
+    }
+
+    private long latestSegmentGeneration() throws IOException {
+        return listSegments().stream().mapToLong(FileRoomEventJournal::generationOf).max().orElse(0);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted((left, right) -> Long.compare(generationOf(left), generationOf(right)))
+                .toList();
+        }
+    }
+
+    private Path segmentPath(long segmentGeneration) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%016d", segmentGeneration) + SEGMENT_SUFFIX);
+    }
+
+    private static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException _error) {
+            return -1;
+        }
+    }
+
+    static byte[] encodeEvent(RoomEvent event) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeByte(event.type().ordinal());
+            writeString(out, event.roomId());
+            writeString(out, event.sessionId());
+            writeString(out, event.userId());
+            writeString(out, event.displayName());
+            out.writeBoolean(event.muted());
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static RoomEvent decodeEvent(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        RoomEventType type = RoomEventType.values()[in.readUnsignedByte()];
+        return new RoomEvent(type, readString(in), readString(in), readString(in), readString(in), in.readBoolean());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        try {
+            return in.readBoolean() ? in.readUTF() : null;
+        } catch (EOFException error) {
+            throw new IOException("Unexpected end of room journal record", error);
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    interface SegmentOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+}
@@ -4,34 +4,94 @@ import com.echoroom.server.room.RoomModels.JoinResult;
 import com.echoroom.server.room.RoomModels.LeaveResult;
 import com.echoroom.server.room.RoomModels.Participant;
 import com.echoroom.server.room.RoomModels.ParticipantSession;
+import com.echoroom.server.room.RoomModels.RoomEvent;
 import com.echoroom.server.room.RoomModels.RoomSnapshot;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class InMemoryRoomStateStore implements RoomStateStore {
 
-    private static final int MAX_ROOM_CAPACITY = 5;
+    private static final int DEFAULT_MAX_ROOM_CAPACITY = 5;
 
     private final Map<String, LinkedHashMap<String, ParticipantSession>> roomSessions = new ConcurrentHashMap<>();
     private final Map<String, String> sessionToRoom = new ConcurrentHashMap<>();
+    private final int maxRoomCapacity;
+    private final RoomEventJournal journal;
+    private final List<RoomLifecycleListener> listeners;
+
+    // Seats restored from the journal whose WebSocket died with the previous process. They are keyed
+    // by RoomEventJournal.recoveredSessionId, so no live connection can address them. A rejoin with
+    // the same user ID takes the seat over; the rest are released after the grace period.
+    private final Set<String> recoveredSessions = new LinkedHashSet<>();
+    private final long recoveredDeadlineMillis;
+
+    public InMemoryRoomStateStore() {
+        this(DEFAULT_MAX_ROOM_CAPACITY, RoomEventJournal.NOOP, List.of(), Duration.ZERO);
+    }
+
+    @Autowired
+    public InMemoryRoomStateStore(
+        @Value("${echo-room.room.max-capacity:5}") int maxRoomCapacity,
+        RoomEventJournal journal,
+        ObjectProvider<RoomLifecycleListener> listeners,
+        @Value("${echo-room.journal.reclaim-grace:30s}") Duration reclaimGrace
+    ) {
+        this(maxRoomCapacity, journal, listeners.orderedStream().toList(), reclaimGrace);
+    }
+
+    public InMemoryRoomStateStore(
+        int maxRoomCapacity,
+        RoomEventJournal journal,
+        List<RoomLifecycleListener> listeners,
+        Duration reclaimGrace
+    ) {
+        this.maxRoomCapacity = maxRoomCapacity;
+        this.journal = journal;
+        this.listeners = List.copyOf(listeners);
+        this.recoveredDeadlineMillis = System.currentTimeMillis() + reclaimGrace.toMillis();
+
+        for (ParticipantSession participantSession : journal.recover()) {
+            roomSessions
+                .computeIfAbsent(participantSession.roomId(), _key -> new LinkedHashMap<>())
+                .put(participantSession.sessionId(), participantSession);
+            sessionToRoom.put(participantSession.sessionId(), participantSession.roomId());
+            recoveredSessions.add(participantSession.sessionId());
+        }
+        roomSessions.keySet().forEach(roomId -> this.listeners.forEach(listener -> listener.onRoomOpened(roomId)));
+    }
 
     @Override
     public synchronized JoinResult join(String roomId, String sessionId, String userId, String displayName) {
         if (roomId == null || roomId.isBlank() || userId == null || userId.isBlank()) {
             return JoinResult.rejected("INVALID_JOIN", "Room ID and User ID are required.");
         }
+        if (RoomEventJournal.isRecoveredSessionId(sessionId)) {
+            return JoinResult.rejected("INVALID_JOIN", "Session ID is reserved.");
+        }
 
+        reclaimRecoveredSeat(roomId, userId);
         leaveBySession(sessionId);
 
-        LinkedHashMap<String, ParticipantSession> room = roomSessions.computeIfAbsent(roomId, _key -> new LinkedHashMap<>());
-        if (room.size() >= MAX_ROOM_CAPACITY) {
-            return JoinResult.rejected("ROOM_FULL", "Room is full (max 5 participants).");
+        LinkedHashMap<String, ParticipantSession> room = roomSessions.get(roomId);
+        if (room == null) {
+            room = new LinkedHashMap<>();
+            roomSessions.put(roomId, room);
+            listeners.forEach(listener -> listener.onRoomOpened(roomId));
+        }
+        if (room.size() >= maxRoomCapacity) {
+            return JoinResult.rejected("ROOM_FULL", "Room is full (max " + maxRoomCapacity + " participants).");
         }
 
         Participant participant = new Participant(userId, displayName == null || displayName.isBlank() ? "Anonymous" : displayName, false);
@@ -39,6 +99,7 @@ public class InMemoryRoomStateStore implements RoomStateStore {
 
         room.put(sessionId, participantSession);
         sessionToRoom.put(sessionId, roomId);
+        journal.append(RoomEvent.joined(participantSession));
 
         return JoinResult.accepted(snapshotFrom(roomId, room), participantSession);
     }
@@ -58,15 +119,42 @@ public class InMemoryRoomStateStore implements RoomStateStore {
         ParticipantSession removed = room.remove(sessionId);
         if (room.isEmpty()) {
             roomSessions.remove(roomId);
+            listeners.forEach(listener -> listener.onRoomClosed(roomId));
         }
 
         if (removed == null) {
             return LeaveResult.noop();
         }
 
+        recoveredSessions.remove(sessionId);
+        journal.append(RoomEvent.left(roomId, sessionId, removed.participant()));
         return LeaveResult.left(roomId, removed.participant());
     }
 
+    @Override
+    public synchronized Optional<ParticipantSession> updateMuted(String sessionId, boolean muted) {
+        String roomId = sessionToRoom.get(sessionId);
+        if (roomId == null) {
+            return Optional.empty();
+        }
+
+        LinkedHashMap<String, ParticipantSession> room = roomSessions.get(roomId);
+        ParticipantSession current = room == null ? null : room.get(sessionId);
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        Participant participant = current.participant();
+        ParticipantSession updated = new ParticipantSession(
+            roomId,
+            sessionId,
+            new Participant(participant.userId(), participant.displayName(), muted)
+        );
+        room.put(sessionId, updated);
+        journal.append(RoomEvent.muted(updated));
+        return Optional.of(updated);
+    }
+
     @Override
     public synchronized Optional<RoomSnapshot> getSnapshot(String roomId) {
         LinkedHashMap<String, ParticipantSession> room = roomSessions.get(roomId);
@@ -91,6 +179,45 @@ public class InMemoryRoomStateStore implements RoomStateStore {
         return Optional.ofNullable(room.get(sessionId));
     }
 
+    @Override
+    public int roomCount() {
+        return roomSessions.size();
+    }
+
+    @Override
+    public synchronized List<LeaveResult> releaseExpiredRecoveredSeats() {
+        if (recoveredSessions.isEmpty() || System.currentTimeMillis() < recoveredDeadlineMillis) {
+            return List.of();
+        }
+
+        List<LeaveResult> released = new ArrayList<>();
+        for (String recoveredSessionId : List.copyOf(recoveredSessions)) {
+            LeaveResult leaveResult = leaveBySession(recoveredSessionId);
+            if (leaveResult.left()) {
+                released.add(leaveResult);
+            }
+        }
+        recoveredSessions.clear();
+        return released;
+    }
+
+    private void reclaimRecoveredSeat(String roomId, String userId) {
+        if (recoveredSessions.isEmpty()) {
+            return;
+        }
+
+        List<String> reclaimed = new ArrayList<>();
+        for (String recoveredSessionId : recoveredSessions) {
+            boolean sameSeat = findBySession(recoveredSessionId)
+                .map(seat -> seat.roomId().equals(roomId) && seat.participant().userId().equals(userId))
+                .orElse(false);
+            if (sameSeat) {
+                reclaimed.add(recoveredSessionId);
+            }
+        }
+        reclaimed.forEach(this::leaveBySession);
+    }
+
     private RoomSnapshot snapshotFrom(String roomId, LinkedHashMap<String, ParticipantSession> room) {
         List<Participant> participants = new ArrayList<>();
         for (ParticipantSession participantSession : room.values()) {
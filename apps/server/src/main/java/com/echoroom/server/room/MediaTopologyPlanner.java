@@ -0,0 +1,139 @@
+package com.echoroom.server.room;
+
+import com.echoroom.server.room.RoomModels.MediaTopology;
+import com.echoroom.server.room.RoomModels.Participant;
+import com.echoroom.server.room.RoomModels.RoomSnapshot;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses a media topology hint per room. Small rooms use a full peer-to-peer mesh, where each
+ * client uploads N-1 streams. Above {@code meshMaxParticipants} the room names a forwarder: the
+ * participant with the best reported uplink, which clients that implement forwarder mode send
+ * every stream to for relaying, so everyone else uploads a single stream.
+ *
+ * <p>The current forwarder is kept until it leaves or another participant reports an uplink at
+ * least {@link #SWITCH_MARGIN} times better, so small fluctuations do not force renegotiation.
+ *
+ * <p>Per-room state lives from {@link #onRoomOpened} to {@link #onRoomClosed}. Those run under the
+ * store lock, so they only touch a concurrent map and never take the per-room lock that
+ * {@link #update} holds while reading from the store. Writers look the room up once and write
+ * into that entry, so an update racing a close lands on the discarded entry instead of leaking.
+ * Updates to different rooms lock different entries and run in parallel.
+ */
+@Component
+public class MediaTopologyPlanner implements RoomLifecycleListener {
+
+    static final double SWITCH_MARGIN = 1.25;
+
+    private final int meshMaxParticipants;
+    private final Map<String, RoomPlan> rooms = new ConcurrentHashMap<>();
+
+    public MediaTopologyPlanner() {
+        this(5);
+    }
+
+    @Autowired
+    public MediaTopologyPlanner(@Value("${echo-room.media.mesh-max-participants:5}") int meshMaxParticipants) {
+        this.meshMaxParticipants = Math.max(2, meshMaxParticipants);
+    }
+
+    public void reportUplink(String roomId, String userId, int uplinkKbps) {
+        RoomPlan room = rooms.get(roomId);
+        if (room != null) {
+            room.uplinkKbps.put(userId, Math.max(0, uplinkKbps));
+        }
+    }
+
+    public void forgetParticipant(String roomId, String userId) {
+        RoomPlan room = rooms.get(roomId);
+        if (room != null) {
+            room.uplinkKbps.remove(userId);
+        }
+    }
+
+    public MediaTopology current(String roomId) {
+        RoomPlan room = rooms.get(roomId);
+        return room == null ? MediaTopology.mesh() : room.topology;
+    }
+
+    /**
+     * Re-plans the room and returns the new topology only if it differs from the previous one.
+     * The snapshot is read under the room's lock so concurrent updates to one room always plan on
+     * fresh state, and each change gets the next version. Callers broadcast after the lock is
+     * released, so two changes may reach a client out of order; the version lets it tell.
+     */
+    public Optional<MediaTopology> update(String roomId, Supplier<Optional<RoomSnapshot>> snapshotSupplier) {
+        RoomPlan room = rooms.get(roomId);
+        if (room == null) {
+            return Optional.empty();
+        }
+        synchronized (room) {
+            Optional<RoomSnapshot> snapshot = snapshotSupplier.get();
+            if (snapshot.isEmpty()) {
+                return Optional.empty();
+            }
+
+            MediaTopology previous = room.topology;
+            MediaTopology next = plan(snapshot.get(), previous, room.uplinkKbps);
+            if (next.sameLayout(previous)) {
+                return Optional.empty();
+            }
+            room.topology = next.withVersion(previous.version() + 1);
+            return Optional.of(room.topology);
+        }
+    }
+
+    @Override
+    public void onRoomOpened(String roomId) {
+        rooms.putIfAbsent(roomId, new RoomPlan());
+    }
+
+    @Override
+    public void onRoomClosed(String roomId) {
+        rooms.remove(roomId);
+    }
+
+    int roomCount() {
+        return rooms.size();
+    }
+
+    private MediaTopology plan(RoomSnapshot snapshot, MediaTopology previous, Map<String, Integer> uplinks) {
+        if (snapshot.participants().size() <= meshMaxParticipants) {
+            return MediaTopology.mesh();
+        }
+
+        String incumbent = null;
+        String best = null;
+        int bestUplink = -1;
+        for (Participant participant : snapshot.participants()) {
+            int uplink = uplinks.getOrDefault(participant.userId(), 0);
+            if (participant.userId().equals(previous.forwarderUserId())) {
+                incumbent = participant.userId();
+            }
+            // Strictly greater keeps the earliest joiner on ties, which is also the longest-lived peer.
+            if (uplink > bestUplink) {
+                best = participant.userId();
+                bestUplink = uplink;
+            }
+        }
+
+        if (incumbent != null) {
+            int incumbentUplink = uplinks.getOrDefault(incumbent, 0);
+            if (bestUplink < incumbentUplink * SWITCH_MARGIN || bestUplink == 0) {
+                return MediaTopology.forwarder(incumbent);
+            }
+        }
+        return MediaTopology.forwarder(best);
+    }
+
+    private static final class RoomPlan {
+        private final Map<String, Integer> uplinkKbps = new ConcurrentHashMap<>();
+        private volatile MediaTopology topology = MediaTopology.mesh();
+    }
+}
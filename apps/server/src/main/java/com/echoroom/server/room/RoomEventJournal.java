@@ -0,0 +1,53 @@
+package com.echoroom.server.room;
+
+import com.echoroom.server.room.RoomModels.ParticipantSession;
+import com.echoroom.server.room.RoomModels.RoomEvent;
+import java.util.List;
+
+/**
+ * Append-only record of room membership changes. {@link #append} is called while the
+ * store holds its lock, so implementations must hand events off without blocking on I/O.
+ */
+public interface RoomEventJournal extends AutoCloseable {
+
+    RoomEventJournal NOOP = new RoomEventJournal() {
+        @Override
+        public void append(RoomEvent event) {
+        }
+
+        @Override
+        public List<ParticipantSession> recover() {
+            return List.of();
+        }
+    };
+
+    String RECOVERED_SESSION_PREFIX = "recovered:";
+
+    void append(RoomEvent event);
+
+    /**
+     * Participants that were present when the journal was last written, in join order. Their session
+     * IDs have been re-keyed with {@link #recoveredSessionId}, and later events for them use those IDs.
+     */
+    List<ParticipantSession> recover();
+
+    /**
+     * WebSocket session IDs are only unique within one process, so a recovered seat must not keep its
+     * old ID: a new connection could be given the same one. {@code epoch} is fresh for every start.
+     */
+    static String recoveredSessionId(String epoch, String sessionId) {
+        String original = sessionId;
+        if (isRecoveredSessionId(original)) {
+            original = original.substring(original.indexOf(':', RECOVERED_SESSION_PREFIX.length()) + 1);
+        }
+        return RECOVERED_SESSION_PREFIX + epoch + ":" + original;
+    }
+
+    static boolean isRecoveredSessionId(String sessionId) {
+        return sessionId.startsWith(RECOVERED_SESSION_PREFIX);
+    }
+
+    @Override
+    default void close() {
+    }
+}
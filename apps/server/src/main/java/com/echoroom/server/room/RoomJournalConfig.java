@@ -0,0 +1,24 @@
+package com.echoroom.server.room;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RoomJournalConfig {
+
+    @Bean
+    public RoomEventJournal roomEventJournal(
+        @Value("${echo-room.journal.enabled:false}") boolean enabled,
+        @Value("${echo-room.journal.directory:./data/journal}") String directory,
+        @Value("${echo-room.journal.batch-size:256}") int batchSize,
+        @Value("${echo-room.journal.snapshot-every:10000}") int snapshotEvery
+    ) throws IOException {
+        if (!enabled) {
+            return RoomEventJournal.NOOP;
+        }
+        return new FileRoomEventJournal(Path.of(directory), batchSize, snapshotEvery);
+    }
+}
@@ -0,0 +1,15 @@
+package com.echoroom.server.room;
+
+/**
+ * Notified by the {@link RoomStateStore} while it holds its lock, so implementations must be quick.
+ */
+public interface RoomLifecycleListener {
+
+    /**
+     * Called when the first participant enters a room, including rooms restored from the journal.
+     */
+    default void onRoomOpened(String roomId) {
+    }
+
+    void onRoomClosed(String roomId);
+}
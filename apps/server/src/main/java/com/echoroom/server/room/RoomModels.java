@@ -1,6 +1,7 @@
 package com.echoroom.server.room;
 
 import java.util.List;
+import java.util.Objects;
 
 public final class RoomModels {
 
@@ -16,6 +17,34 @@ public final class RoomModels {
     public record RoomSnapshot(String roomId, List<Participant> participants) {
     }
 
+    /**
+     * Media topology hint for a room. A client that implements {@code forwarder} mode connects only
+     * to {@code forwarderUserId}, which relays audio to the rest of the room. {@code version} grows
+     * with every change in the room, so a client that receives {@code topology_changed} frames out
+     * of order keeps the highest one.
+     */
+    public record MediaTopology(String mode, String forwarderUserId, long version) {
+
+        public static final String MESH = "mesh";
+        public static final String FORWARDER = "forwarder";
+
+        public static MediaTopology mesh() {
+            return new MediaTopology(MESH, null, 0);
+        }
+
+        public static MediaTopology forwarder(String forwarderUserId) {
+            return new MediaTopology(FORWARDER, forwarderUserId, 0);
+        }
+
+        public MediaTopology withVersion(long version) {
+            return new MediaTopology(mode, forwarderUserId, version);
+        }
+
+        public boolean sameLayout(MediaTopology other) {
+            return mode.equals(other.mode) && Objects.equals(forwarderUserId, other.forwarderUserId);
+        }
+    }
+
     public record JoinResult(
         boolean accepted,
         String errorCode,
@@ -32,6 +61,49 @@ public final class RoomModels {
         }
     }
 
+    public record RoomEvent(
+        RoomEventType type,
+        String roomId,
+        String sessionId,
+        String userId,
+        String displayName,
+        boolean muted
+    ) {
+        public static RoomEvent joined(ParticipantSession participantSession) {
+            Participant participant = participantSession.participant();
+            return new RoomEvent(
+                RoomEventType.JOIN,
+                participantSession.roomId(),
+                participantSession.sessionId(),
+                participant.userId(),
+                participant.displayName(),
+                participant.muted()
+            );
+        }
+
+        public static RoomEvent left(String roomId, String sessionId, Participant participant) {
+            return new RoomEvent(RoomEventType.LEAVE, roomId, sessionId, participant.userId(), null, false);
+        }
+
+        public static RoomEvent muted(ParticipantSession participantSession) {
+            Participant participant = participantSession.participant();
+            return new RoomEvent(
+                RoomEventType.MUTE,
+                participantSession.roomId(),
+                participantSession.sessionId(),
+                participant.userId(),
+                null,
+                participant.muted()
+            );
+        }
+    }
+
+    public enum RoomEventType {
+        JOIN,
+        LEAVE,
+        MUTE
+    }
+
     public record LeaveResult(boolean left, String roomId, Participant participant) {
 
         public static LeaveResult noop() {
@@ -4,6 +4,7 @@ import com.echoroom.server.room.RoomModels.JoinResult;
 import com.echoroom.server.room.RoomModels.LeaveResult;
 import com.echoroom.server.room.RoomModels.ParticipantSession;
 import com.echoroom.server.room.RoomModels.RoomSnapshot;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoomStateStore {
@@ -12,7 +13,17 @@ public interface RoomStateStore {
 
     LeaveResult leaveBySession(String sessionId);
 
+    Optional<ParticipantSession> updateMuted(String sessionId, boolean muted);
+
+    /**
+     * Removes seats restored from a journal that nobody reclaimed within the grace period, so the
+     * caller can tell the rest of each room that those participants left.
+     */
+    List<LeaveResult> releaseExpiredRecoveredSeats();
+
     Optional<RoomSnapshot> getSnapshot(String roomId);
 
     Optional<ParticipantSession> findBySession(String sessionId);
+
+    int roomCount();
 }
@@ -0,0 +1,55 @@
+package com.echoroom.server.ws;
+
+import com.echoroom.server.room.RoomEventJournal;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically asks the router to release journal-recovered seats whose grace period has passed, so
+ * they are removed and announced even if nobody joins. Only runs when the journal restored seats.
+ */
+@Component
+public class RecoveredSeatReaper implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RecoveredSeatReaper.class);
+
+    private final ScheduledExecutorService scheduler;
+
+    public RecoveredSeatReaper(
+        RoomMessageRouter roomMessageRouter,
+        RoomEventJournal journal,
+        @Value("${echo-room.journal.reap-interval:1s}") Duration interval
+    ) {
+        if (journal.recover().isEmpty()) {
+            this.scheduler = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recovered-seat-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, interval.toMillis());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                roomMessageRouter.releaseExpiredRecoveredSeats();
+            } catch (RuntimeException error) {
+                log.warn("Failed to release expired recovered seats", error);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.echoroom.server.ws;
 
+import com.echoroom.server.ai.AIContextStore;
+import com.echoroom.server.ai.AIContextStore.Conversation;
 import com.echoroom.server.ai.AIService;
 import com.echoroom.server.ai.AIService.AIReply;
 import com.echoroom.server.ai.AIService.AIRequest;
+import com.echoroom.server.health.ServerLoadMetrics;
+import com.echoroom.server.room.MediaTopologyPlanner;
 import com.echoroom.server.room.RoomModels.JoinResult;
 import com.echoroom.server.room.RoomModels.LeaveResult;
+import com.echoroom.server.room.RoomModels.MediaTopology;
 import com.echoroom.server.room.RoomModels.Participant;
 import com.echoroom.server.room.RoomModels.ParticipantSession;
 import com.echoroom.server.room.RoomModels.RoomSnapshot;
@@ -16,27 +21,93 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
-public class RoomMessageRouter {
+public class RoomMessageRouter implements AutoCloseable {
 
     private final RoomStateStore roomStateStore;
+    private final MediaTopologyPlanner mediaTopologyPlanner;
     private final AIService aiService;
+    private final AIContextStore aiContextStore;
     private final ObjectMapper objectMapper;
-    private final Map<String, RoomSession> sessions = new ConcurrentHashMap<>();
+    private final ServerLoadMetrics serverLoadMetrics;
+    private final Executor outboxDrainExecutor;
+    private final ExecutorService ownedExecutor;
+    private final Map<String, SessionOutbox> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RoomMessageRouter(
+        RoomStateStore roomStateStore,
+        MediaTopologyPlanner mediaTopologyPlanner,
+        AIService aiService,
+        AIContextStore aiContextStore,
+        ObjectMapper objectMapper,
+        ServerLoadMetrics serverLoadMetrics
+    ) {
+        this(roomStateStore, mediaTopologyPlanner, aiService, aiContextStore, objectMapper, serverLoadMetrics, outboxDrainPool());
+    }
 
-    public RoomMessageRouter(RoomStateStore roomStateStore, AIService aiService, ObjectMapper objectMapper) {
+    public RoomMessageRouter(
+        RoomStateStore roomStateStore,
+        MediaTopologyPlanner mediaTopologyPlanner,
+        AIService aiService,
+        AIContextStore aiContextStore,
+        ObjectMapper objectMapper,
+        ServerLoadMetrics serverLoadMetrics,
+        Executor outboxDrainExecutor
+    ) {
         this.roomStateStore = roomStateStore;
+        this.mediaTopologyPlanner = mediaTopologyPlanner;
         this.aiService = aiService;
+        this.aiContextStore = aiContextStore;
         this.objectMapper = objectMapper;
+        this.serverLoadMetrics = serverLoadMetrics;
+        this.outboxDrainExecutor = outboxDrainExecutor;
+        this.ownedExecutor = outboxDrainExecutor instanceof ExecutorService executorService ? executorService : null;
     }
 
     public void register(RoomSession session) {
-        sessions.put(session.id(), session);
+        if (sessions.put(session.id(), new SessionOutbox(session, serverLoadMetrics, outboxDrainExecutor)) == null) {
+            serverLoadMetrics.sessionOpened();
+        }
     }
 
     public void handleMessage(String sessionId, String payload) {
+        serverLoadMetrics.inboundStarted();
+        try {
+            dispatch(sessionId, payload);
+        } finally {
+            serverLoadMetrics.inboundFinished();
+        }
+    }
+
+    public void handleClose(String sessionId) {
+        leaveAndBroadcast(sessionId);
+        if (sessions.remove(sessionId) != null) {
+            serverLoadMetrics.sessionClosed();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+
+    public void releaseExpiredRecoveredSeats() {
+        for (LeaveResult leaveResult : roomStateStore.releaseExpiredRecoveredSeats()) {
+            broadcastLeft(null, leaveResult);
+        }
+    }
+
+    private void dispatch(String sessionId, String payload) {
         IncomingMessage message;
         try {
             message = objectMapper.readValue(payload, IncomingMessage.class);
@@ -55,22 +126,24 @@ public class RoomMessageRouter {
             case "leave_room" -> leaveAndBroadcast(sessionId);
             case "signal_offer", "signal_answer", "signal_ice" -> handleSignal(sessionId, message.type, message.payload);
             case "mute_state" -> handleMuteState(sessionId, message.payload);
+            case "uplink_stats" -> handleUplinkStats(sessionId, message.payload);
             case "ai_ping" -> handleAiPing(sessionId, message.payload);
             default -> sendError(sessionId, "UNSUPPORTED_TYPE", "Unsupported message type: " + message.type);
         }
     }
 
-    public void handleClose(String sessionId) {
-        leaveAndBroadcast(sessionId);
-        sessions.remove(sessionId);
-    }
-
     private void handleJoin(String sessionId, JsonNode payload) {
         String roomId = text(payload, "roomId");
         String userId = text(payload, "userId");
         String displayName = text(payload, "displayName");
 
+        Optional<ParticipantSession> previousSeat = roomStateStore.findBySession(sessionId);
         JoinResult joinResult = roomStateStore.join(roomId, sessionId, userId, displayName);
+        // join() gives up any seat this session held, even when the new room turns it away, so the
+        // old room has to hear about it the same way it would about a disconnect.
+        previousSeat
+            .filter(seat -> !roomStateStore.findBySession(sessionId).equals(Optional.of(seat)))
+            .ifPresent(seat -> broadcastLeft(sessionId, LeaveResult.left(seat.roomId(), seat.participant())));
         if (!joinResult.accepted()) {
             sendError(sessionId, joinResult.errorCode(), joinResult.errorMessage());
             return;
@@ -78,17 +151,21 @@ public class RoomMessageRouter {
 
         RoomSnapshot snapshot = joinResult.snapshot();
         ParticipantSession self = joinResult.self();
+        Optional<MediaTopology> topologyChange = replanTopology(snapshot.roomId());
 
         send(sessionId, "room_snapshot", Map.of(
             "roomId", snapshot.roomId(),
             "selfUserId", self.participant().userId(),
-            "participants", snapshot.participants()
+            "participants", snapshot.participants(),
+            "topology", mediaTopologyPlanner.current(snapshot.roomId())
         ));
 
         broadcastToRoomExcept(snapshot.roomId(), sessionId, "user_joined", Map.of(
             "roomId", snapshot.roomId(),
             "user", self.participant()
         ));
+
+        topologyChange.ifPresent(topology -> broadcastTopology(snapshot.roomId(), sessionId, topology));
     }
 
     private void handleSignal(String sessionId, String type, JsonNode payload) {
@@ -104,7 +181,7 @@ public class RoomMessageRouter {
             return;
         }
 
-        Optional<RoomSession> targetSession = findSessionByRoomAndUserId(sender.get().roomId(), targetUserId);
+        Optional<SessionOutbox> targetSession = findSessionByRoomAndUserId(sender.get().roomId(), targetUserId);
         if (targetSession.isEmpty()) {
             sendError(sessionId, "TARGET_NOT_FOUND", "Target user is not connected.");
             return;
@@ -124,13 +201,13 @@ public class RoomMessageRouter {
     }
 
     private void handleMuteState(String sessionId, JsonNode payload) {
-        Optional<ParticipantSession> sender = roomStateStore.findBySession(sessionId);
+        boolean muted = payload != null && payload.path("muted").asBoolean(false);
+        Optional<ParticipantSession> sender = roomStateStore.updateMuted(sessionId, muted);
         if (sender.isEmpty()) {
             sendError(sessionId, "NOT_IN_ROOM", "Join a room before updating mute state.");
             return;
         }
 
-        boolean muted = payload != null && payload.path("muted").asBoolean(false);
         ParticipantSession participantSession = sender.get();
 
         broadcastToRoomExcept(participantSession.roomId(), sessionId, "user_muted", Map.of(
@@ -140,6 +217,24 @@ public class RoomMessageRouter {
         ));
     }
 
+    private void handleUplinkStats(String sessionId, JsonNode payload) {
+        Optional<ParticipantSession> sender = roomStateStore.findBySession(sessionId);
+        if (sender.isEmpty()) {
+            sendError(sessionId, "NOT_IN_ROOM", "Join a room before reporting uplink stats.");
+            return;
+        }
+
+        JsonNode uplinkKbps = payload == null ? null : payload.get("uplinkKbps");
+        if (uplinkKbps == null || !uplinkKbps.isNumber()) {
+            sendError(sessionId, "INVALID_UPLINK_STATS", "uplinkKbps must be a number.");
+            return;
+        }
+
+        String roomId = sender.get().roomId();
+        mediaTopologyPlanner.reportUplink(roomId, sender.get().participant().userId(), uplinkKbps.asInt());
+        replanTopology(roomId).ifPresent(topology -> broadcastTopology(roomId, null, topology));
+    }
+
     private void handleAiPing(String sessionId, JsonNode payload) {
         Optional<ParticipantSession> sender = roomStateStore.findBySession(sessionId);
         if (sender.isEmpty()) {
@@ -147,15 +242,25 @@ public class RoomMessageRouter {
             return;
         }
 
-        String text = text(payload, "text");
-        AIReply reply = aiService.reply(new AIRequest(
-            sender.get().roomId(),
-            sender.get().participant().userId(),
-            text == null ? "" : text
-        ));
+        String roomId = sender.get().roomId();
+        String userId = sender.get().participant().userId();
+        String prompt = text(payload, "text");
+        if (prompt == null) {
+            prompt = "";
+        }
+
+        Conversation conversation = aiContextStore.conversationFor(roomId);
+        AIReply reply;
+        serverLoadMetrics.aiRequestStarted();
+        try {
+            reply = aiService.reply(new AIRequest(roomId, userId, prompt, aiContextStore.contextOf(conversation)));
+        } finally {
+            serverLoadMetrics.aiRequestFinished();
+        }
+        aiContextStore.record(conversation, userId, prompt, reply.text());
 
         send(sessionId, "ai_reply", Map.of(
-            "roomId", sender.get().roomId(),
+            "roomId", roomId,
             "text", reply.text()
         ));
     }
@@ -165,17 +270,34 @@ public class RoomMessageRouter {
         if (!leaveResult.left()) {
             return;
         }
+        broadcastLeft(sessionId, leaveResult);
+    }
 
+    private void broadcastLeft(String sessionId, LeaveResult leaveResult) {
         Participant participant = leaveResult.participant();
         broadcastToRoomExcept(leaveResult.roomId(), sessionId, "user_left", Map.of(
             "roomId", leaveResult.roomId(),
             "userId", participant.userId()
         ));
+
+        mediaTopologyPlanner.forgetParticipant(leaveResult.roomId(), participant.userId());
+        replanTopology(leaveResult.roomId()).ifPresent(topology -> broadcastTopology(leaveResult.roomId(), sessionId, topology));
+    }
+
+    private Optional<MediaTopology> replanTopology(String roomId) {
+        return mediaTopologyPlanner.update(roomId, () -> roomStateStore.getSnapshot(roomId));
+    }
+
+    private void broadcastTopology(String roomId, String excludedSessionId, MediaTopology topology) {
+        broadcastToRoomExcept(roomId, excludedSessionId, "topology_changed", Map.of(
+            "roomId", roomId,
+            "topology", topology
+        ));
     }
 
-    private Optional<RoomSession> findSessionByRoomAndUserId(String roomId, String userId) {
+    private Optional<SessionOutbox> findSessionByRoomAndUserId(String roomId, String userId) {
         return sessions.values().stream()
-            .filter(RoomSession::isOpen)
+            .filter(SessionOutbox::isOpen)
             .filter(session -> roomStateStore.findBySession(session.id())
                 .map(participantSession -> participantSession.roomId().equals(roomId)
                     && participantSession.participant().userId().equals(userId))
@@ -186,7 +308,7 @@ public class RoomMessageRouter {
 
     private void broadcastToRoomExcept(String roomId, String excludedSessionId, String type, Map<String, Object> payload) {
         sessions.values().stream()
-            .filter(RoomSession::isOpen)
+            .filter(SessionOutbox::isOpen)
             .filter(session -> !session.id().equals(excludedSessionId))
             .filter(session -> roomStateStore.findBySession(session.id())
                 .map(participantSession -> participantSession.roomId().equals(roomId))
@@ -203,13 +325,13 @@ public class RoomMessageRouter {
     }
 
     private void send(String sessionId, String type, Object payload) {
-        RoomSession session = sessions.get(sessionId);
+        SessionOutbox session = sessions.get(sessionId);
         if (session == null || !session.isOpen()) {
             return;
         }
 
         try {
-            session.send(objectMapper.writeValueAsString(new OutgoingMessage(type, payload)));
+            session.enqueue(type, objectMapper.writeValueAsString(new OutgoingMessage(type, payload)));
         } catch (JsonProcessingException _error) {
             // Ignore serialization error to avoid breaking session loop.
         }
@@ -226,6 +348,15 @@ public class RoomMessageRouter {
         return node.asText();
     }
 
+    private static ExecutorService outboxDrainPool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "outbox-drain-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     private static final class IncomingMessage {
         public String type;
         public JsonNode payload;
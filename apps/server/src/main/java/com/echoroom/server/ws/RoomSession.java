@@ -7,4 +7,6 @@ public interface RoomSession {
     boolean isOpen();
 
     void send(String text);
+
+    void close();
 }
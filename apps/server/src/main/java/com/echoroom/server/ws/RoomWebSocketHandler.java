@@ -62,5 +62,14 @@ public class RoomWebSocketHandler extends TextWebSocketHandler {
                 // Transport errors are handled by WebSocket callbacks.
             }
         }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException _error) {
+                // The session is going away either way; afterConnectionClosed cleans up.
+            }
+        }
     }
 }
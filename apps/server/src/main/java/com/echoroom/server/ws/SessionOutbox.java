@@ -0,0 +1,212 @@
+package com.echoroom.server.ws;
+
+import com.echoroom.server.health.ServerLoadMetrics;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-session outbound queue with priority classes. Whichever thread finds the outbox idle
+ * drains it; other producers only enqueue, so frames to one session are never sent concurrently
+ * and signaling overtakes presence and AI frames that are still waiting.
+ *
+ * <p>Strict priority alone would let a stream of signaling frames starve AI replies, so a
+ * waiting class that has been passed over {@link #MAX_SKIPS} times is served next.
+ *
+ * <p>The draining thread is usually a request thread handling some other session's message, so it
+ * sends at most {@link #MAX_FRAMES_PER_DRAIN} frames and then hands the rest to the drain executor,
+ * which works in the same bounded turns. What remains is head-of-line blocking inside one send: a
+ * client whose socket buffer is full holds the thread sending to it until the transport's send
+ * timeout, and frames to that client wait behind it.
+ *
+ * <p>A client that stops reading must not grow the queue without bound, so each lane holds at most
+ * {@link #MAX_FRAMES_PER_LANE} frames. Only AI replies can be lost without harm, so a full AI lane
+ * drops its oldest frame. Signaling and presence frames are one-time state changes that are never
+ * resent, so a full signaling or presence lane closes the session instead and the client reconnects
+ * to a fresh snapshot.
+ */
+final class SessionOutbox {
+
+    static final int MAX_SKIPS = 4;
+    static final int MAX_FRAMES_PER_LANE = 256;
+    static final int MAX_FRAMES_PER_DRAIN = 16;
+
+    private static final Logger log = LoggerFactory.getLogger(SessionOutbox.class);
+
+    private final RoomSession session;
+    private final ServerLoadMetrics serverLoadMetrics;
+    private final Executor drainExecutor;
+    private final int maxFramesPerLane;
+    private final Lane[] lanes;
+    private boolean draining;
+    private boolean closed;
+
+    SessionOutbox(RoomSession session, ServerLoadMetrics serverLoadMetrics, Executor drainExecutor) {
+        this(session, serverLoadMetrics, drainExecutor, MAX_FRAMES_PER_LANE);
+    }
+
+    SessionOutbox(RoomSession session, ServerLoadMetrics serverLoadMetrics, Executor drainExecutor, int maxFramesPerLane) {
+        this.session = session;
+        this.serverLoadMetrics = serverLoadMetrics;
+        this.drainExecutor = drainExecutor;
+        this.maxFramesPerLane = Math.max(1, maxFramesPerLane);
+        this.lanes = new Lane[Priority.values().length];
+        for (Priority priority : Priority.values()) {
+            lanes[priority.ordinal()] = new Lane();
+        }
+    }
+
+    String id() {
+        return session.id();
+    }
+
+    boolean isOpen() {
+        return session.isOpen();
+    }
+
+    void enqueue(String type, String text) {
+        Priority priority = Priority.of(type);
+        boolean overflowed = false;
+        synchronized (this) {
+            Lane lane = lanes[priority.ordinal()];
+            if (!closed && lane.frames.size() >= maxFramesPerLane) {
+                if (priority.droppable()) {
+                    lane.frames.removeFirst();
+                    serverLoadMetrics.outboundDrained();
+                    serverLoadMetrics.outboundDropped(priority.metricName());
+                } else {
+                    closed = true;
+                    overflowed = true;
+                    discardQueued();
+                }
+            }
+
+            if (closed) {
+                serverLoadMetrics.outboundDropped(priority.metricName());
+                if (!overflowed) {
+                    return;
+                }
+            } else {
+                lane.frames.addLast(new Frame(text, System.nanoTime()));
+                serverLoadMetrics.outboundQueued();
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+        }
+
+        if (overflowed) {
+            log.warn("Closing session {}: more than {} {} frames waiting", session.id(), maxFramesPerLane, priority.metricName());
+            session.close();
+            return;
+        }
+        drain();
+    }
+
+    private void drain() {
+        for (int sent = 0; ; sent++) {
+            Frame frame;
+            Priority priority;
+            synchronized (this) {
+                if (!hasQueued()) {
+                    draining = false;
+                    return;
+                }
+                if (sent == MAX_FRAMES_PER_DRAIN) {
+                    // Still marked draining, so no other producer starts a second drain meanwhile.
+                    drainExecutor.execute(this::drain);
+                    return;
+                }
+                priority = nextPriority();
+                frame = lanes[priority.ordinal()].frames.removeFirst();
+                serverLoadMetrics.outboundDrained();
+            }
+
+            serverLoadMetrics.outboundDelivered(priority.metricName(), System.nanoTime() - frame.enqueuedNanos());
+            if (session.isOpen()) {
+                try {
+                    session.send(frame.text());
+                } catch (RuntimeException _error) {
+                    // Keep draining; transport errors are handled by WebSocket callbacks.
+                }
+            }
+        }
+    }
+
+    private void discardQueued() {
+        for (Priority priority : Priority.values()) {
+            Lane lane = lanes[priority.ordinal()];
+            while (!lane.frames.isEmpty()) {
+                lane.frames.removeFirst();
+                serverLoadMetrics.outboundDrained();
+                serverLoadMetrics.outboundDropped(priority.metricName());
+            }
+        }
+    }
+
+    private boolean hasQueued() {
+        for (Lane lane : lanes) {
+            if (!lane.frames.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Priority nextPriority() {
+        Priority chosen = null;
+        for (Priority priority : Priority.values()) {
+            Lane lane = lanes[priority.ordinal()];
+            if (lane.frames.isEmpty()) {
+                continue;
+            }
+            if (chosen == null || lane.skips >= MAX_SKIPS) {
+                chosen = priority;
+            }
+        }
+
+        for (Priority priority : Priority.values()) {
+            Lane lane = lanes[priority.ordinal()];
+            if (priority == chosen) {
+                lane.skips = 0;
+            } else if (!lane.frames.isEmpty()) {
+                lane.skips++;
+            }
+        }
+        return chosen;
+    }
+
+    enum Priority {
+        SIGNALING,
+        PRESENCE,
+        AI;
+
+        static Priority of(String type) {
+            if (type.startsWith("signal_")) {
+                return SIGNALING;
+            }
+            if (type.startsWith("ai_")) {
+                return AI;
+            }
+            return PRESENCE;
+        }
+
+        String metricName() {
+            return name().toLowerCase();
+        }
+
+        boolean droppable() {
+            return this == AI;
+        }
+    }
+
+    private static final class Lane {
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private int skips;
+    }
+
+    private record Frame(String text, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.echoroom.server.ws;
+
+import com.echoroom.server.ai.AIContextStore;
+import com.echoroom.server.ai.MockAIService;
+import com.echoroom.server.health.ServerLoadMetrics;
+import com.echoroom.server.room.InMemoryRoomStateStore;
+import com.echoroom.server.room.MediaTopologyPlanner;
+import com.echoroom.server.room.RoomEventJournal;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drives a throwaway {@link RoomMessageRouter} through a full call setup before the web server
+ * starts, so the message dispatch and Jackson paths are loaded and initialized before the first
+ * real socket arrives. It runs in {@code afterSingletonsInstantiated}, which is also before
+ * {@code spring.context.exit=onRefresh} stops a CDS training run, so the classes it touches end
+ * up in the archive.
+ *
+ * <p>Almost all of the first message's cost is class loading, which one pass pays in full; more
+ * iterations mostly add startup time, so the default is a handful.
+ *
+ * <p>Everything is private to the warm-up: its own store, planner, AI context and metrics, and the
+ * mock AI service, so no real room state, load counters or AI backend are touched.
+ */
+@Component
+public class StartupWarmup implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int iterations;
+
+    public StartupWarmup(
+        ObjectMapper objectMapper,
+        @Value("${echo-room.warmup.enabled:false}") boolean enabled,
+        @Value("${echo-room.warmup.iterations:5}") int iterations
+    ) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            run(iterations);
+        } catch (JsonProcessingException error) {
+            log.warn("Startup warm-up skipped", error);
+            return;
+        }
+        log.info("Startup warm-up ran {} iterations in {} ms", iterations, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private void run(int count) throws JsonProcessingException {
+        MediaTopologyPlanner planner = new MediaTopologyPlanner();
+        AIContextStore aiContextStore = new AIContextStore(8, 4000, 1000, Runnable::run);
+        InMemoryRoomStateStore store = new InMemoryRoomStateStore(5, RoomEventJournal.NOOP, List.of(planner, aiContextStore), Duration.ZERO);
+        RoomMessageRouter router = new RoomMessageRouter(
+            store,
+            planner,
+            new MockAIService(),
+            aiContextStore,
+            objectMapper,
+            new ServerLoadMetrics(store, 1),
+            Runnable::run
+        );
+
+        List<String> fromA = List.of(
+            message("join_room", Map.of("roomId", "warmup", "userId", "warmup-a", "displayName", "A")),
+            message("uplink_stats", Map.of("uplinkKbps", 1000)),
+            message("signal_offer", Map.of("targetUserId", "warmup-b", "sdp", Map.of("type", "offer", "sdp", "v=0"))),
+            message("signal_ice", Map.of("targetUserId", "warmup-b", "candidate", Map.of("candidate", "c", "sdpMid", "0"))),
+            message("mute_state", Map.of("muted", true)),
+            message("ai_ping", Map.of("text", "warmup"))
+        );
+        String joinB = message("join_room", Map.of("roomId", "warmup", "userId", "warmup-b", "displayName", "B"));
+        String answerB = message("signal_answer", Map.of("targetUserId", "warmup-a", "sdp", Map.of("type", "answer", "sdp", "v=0")));
+
+        for (int index = 0; index < count; index++) {
+            router.register(new DiscardingSession("warmup-s-a"));
+            router.register(new DiscardingSession("warmup-s-b"));
+            router.handleMessage("warmup-s-b", joinB);
+            for (String payload : fromA) {
+                router.handleMessage("warmup-s-a", payload);
+            }
+            router.handleMessage("warmup-s-b", answerB);
+            router.handleClose("warmup-s-a");
+            router.handleClose("warmup-s-b");
+        }
+    }
+
+    private String message(String type, Map<String, Object> payload) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(Map.of("type", type, "payload", payload));
+    }
+
+    private record DiscardingSession(String id) implements RoomSession {
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void send(String text) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.echoroom.server.ai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.echoroom.server.ai.AIContextStore.Conversation;
+import com.echoroom.server.ai.AIService.AIContext;
+import com.echoroom.server.ai.AIService.Exchange;
+import com.echoroom.server.room.InMemoryRoomStateStore;
+import com.echoroom.server.room.RoomEventJournal;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AIContextStoreTest {
+
+    private final AIContextStore contextStore = new AIContextStore(3, 200, 40, Runnable::run);
+
+    @Test
+    void shouldKeepRecentExchangesAndSummarizeEvictedOnes() {
+        contextStore.onRoomOpened("r-1");
+        for (int index = 1; index <= 5; index++) {
+            record("r-1", "u-" + index, "q" + index, "a" + index);
+        }
+
+        AIContext context = contextStore.contextFor("r-1");
+
+        assertThat(context.recentExchanges()).containsExactly(
+            new Exchange("u-3", "q3", "a3"),
+            new Exchange("u-4", "q4", "a4"),
+            new Exchange("u-5", "q5", "a5")
+        );
+        assertThat(context.summary()).isEqualTo("u-1: q1\nu-2: q2");
+        assertThat(contextStore.contextFor("r-other")).isEqualTo(AIContext.EMPTY);
+    }
+
+    @Test
+    void shouldCapSummaryAndExchangeSize() {
+        contextStore.onRoomOpened("r-1");
+        record("r-1", "u-1", "x".repeat(500), "y".repeat(500));
+        for (int index = 1; index <= 10; index++) {
+            record("r-1", "u-" + index, "question number " + index, "ok");
+        }
+
+        AIContext context = contextStore.contextFor("r-1");
+
+        assertThat(context.recentExchanges()).hasSize(3);
+        assertThat(context.summary().length()).isLessThanOrEqualTo(40);
+        assertThat(context.summary()).endsWith("u-7: question number 7");
+    }
+
+    @Test
+    void shouldDropContextWhenRoomEmpties() {
+        InMemoryRoomStateStore store = new InMemoryRoomStateStore(5, RoomEventJournal.NOOP, List.of(contextStore), Duration.ZERO);
+        store.join("r-1", "s-1", "u-1", "User 1");
+        store.join("r-1", "s-2", "u-2", "User 2");
+        record("r-1", "u-1", "hello", "hi");
+
+        store.leaveBySession("s-1");
+        assertThat(contextStore.contextFor("r-1").recentExchanges()).hasSize(1);
+
+        store.leaveBySession("s-2");
+        assertThat(contextStore.contextFor("r-1")).isEqualTo(AIContext.EMPTY);
+        assertThat(contextStore.roomCount()).isZero();
+    }
+
+    @Test
+    void shouldDiscardRepliesThatArriveAfterTheRoomClosed() {
+        InMemoryRoomStateStore store = new InMemoryRoomStateStore(5, RoomEventJournal.NOOP, List.of(contextStore), Duration.ZERO);
+        store.join("r-1", "s-1", "u-1", "User 1");
+        Conversation inFlight = contextStore.conversationFor("r-1");
+        store.leaveBySession("s-1");
+
+        contextStore.record(inFlight, "u-1", "late question", "late answer");
+
+        assertThat(contextStore.contextFor("r-1")).isEqualTo(AIContext.EMPTY);
+        assertThat(contextStore.roomCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepLateRepliesOutOfAReopenedRoom() {
+        InMemoryRoomStateStore store = new InMemoryRoomStateStore(5, RoomEventJournal.NOOP, List.of(contextStore), Duration.ZERO);
+        store.join("r-1", "s-1", "u-1", "User 1");
+        Conversation inFlight = contextStore.conversationFor("r-1");
+        store.leaveBySession("s-1");
+        store.join("r-1", "s-2", "u-2", "User 2");
+
+        contextStore.record(inFlight, "u-1", "late question", "late answer");
+
+        assertThat(contextStore.contextFor("r-1")).isEqualTo(AIContext.EMPTY);
+    }
+
+    private void record(String roomId, String userId, String prompt, String reply) {
+        contextStore.record(contextStore.conversationFor(roomId), userId, prompt, reply);
+    }
+}
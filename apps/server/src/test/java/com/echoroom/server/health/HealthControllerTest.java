@@ -0,0 +1,23 @@
+package com.echoroom.server.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.echoroom.server.room.InMemoryRoomStateStore;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class HealthControllerTest {
+
+    private final ServerLoadMetrics loadMetrics = new ServerLoadMetrics(new InMemoryRoomStateStore(), 200);
+    private final HealthController healthController = new HealthController(loadMetrics);
+
+    @Test
+    void shouldAnswerServiceUnavailableWhileBusy() {
+        assertThat(healthController.health().getStatusCode().value()).isEqualTo(200);
+
+        IntStream.range(0, 1000).forEach(index -> loadMetrics.outboundQueued());
+
+        assertThat(healthController.health().getStatusCode().value()).isEqualTo(503);
+        assertThat(healthController.health().getBody().get("status")).isEqualTo("busy");
+    }
+}
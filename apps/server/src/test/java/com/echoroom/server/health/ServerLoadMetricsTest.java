@@ -0,0 +1,65 @@
+package com.echoroom.server.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.echoroom.server.health.ServerLoadMetrics.LoadSnapshot;
+import com.echoroom.server.room.InMemoryRoomStateStore;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ServerLoadMetricsTest {
+
+    private final AtomicLong clockMillis = new AtomicLong(1_000_000L);
+    private final ServerLoadMetrics loadMetrics = new ServerLoadMetrics(
+        new InMemoryRoomStateStore(),
+        200,
+        10,
+        Duration.ofMillis(50),
+        4,
+        clockMillis::get
+    );
+
+    @Test
+    void shouldReportBusyWhenOutboundBacklogNearsItsLimit() {
+        IntStream.range(0, 5).forEach(index -> loadMetrics.outboundQueued());
+
+        LoadSnapshot halfFull = loadMetrics.snapshot();
+        assertThat(halfFull.status()).isEqualTo("ok");
+        assertThat(halfFull.weight()).isEqualTo(50);
+
+        IntStream.range(0, 4).forEach(index -> loadMetrics.outboundQueued());
+
+        LoadSnapshot nearlyFull = loadMetrics.snapshot();
+        assertThat(nearlyFull.status()).isEqualTo("busy");
+        assertThat(nearlyFull.weight()).isEqualTo(10);
+        assertThat(nearlyFull.workerSaturation()).isZero();
+    }
+
+    @Test
+    void shouldReportBusyWhileAiRequestsPileUp() {
+        IntStream.range(0, 4).forEach(index -> loadMetrics.aiRequestStarted());
+
+        assertThat(loadMetrics.snapshot().status()).isEqualTo("busy");
+        assertThat(loadMetrics.snapshot().weight()).isZero();
+
+        IntStream.range(0, 3).forEach(index -> loadMetrics.aiRequestFinished());
+
+        assertThat(loadMetrics.snapshot().status()).isEqualTo("ok");
+    }
+
+    @Test
+    void shouldCountQueueDelayOnlyWhileItIsRecent() {
+        IntStream.range(0, 30).forEach(index -> loadMetrics.outboundDelivered("signaling", 100_000_000L));
+
+        assertThat(loadMetrics.snapshot().status()).isEqualTo("busy");
+
+        clockMillis.addAndGet(11_000);
+
+        LoadSnapshot idle = loadMetrics.snapshot();
+        assertThat(idle.status()).isEqualTo("ok");
+        assertThat(idle.weight()).isEqualTo(100);
+        assertThat(idle.outboundQueueDelay().get("signaling").frames()).isEqualTo(30L);
+    }
+}
@@ -0,0 +1,273 @@
+package com.echoroom.server.room;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.echoroom.server.room.RoomModels.Participant;
+import com.echoroom.server.room.RoomModels.ParticipantSession;
+import com.echoroom.server.room.RoomModels.RoomEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileRoomEventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayJoinMuteAndLeaveAfterRestart() throws IOException {
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(directory, 16, 1_000)) {
+            journal.append(RoomEvent.joined(session("r-1", "s-1", "u-1", false)));
+            journal.append(RoomEvent.joined(session("r-1", "s-2", "u-2", false)));
+            journal.append(RoomEvent.joined(session("r-2", "s-3", "u-3", false)));
+            journal.append(RoomEvent.muted(session("r-1", "s-2", "u-2", true)));
+            journal.append(RoomEvent.left("r-2", "s-3", new Participant("u-3", "User u-3", false)));
+        }
+
+        try (FileRoomEventJournal reopened = new FileRoomEventJournal(directory, 16, 1_000)) {
+            List<ParticipantSession> recovered = reopened.recover();
+
+            assertThat(recovered.stream().map(ParticipantSession::participant).toList()).containsExactly(
+                new Participant("u-1", "User u-1", false),
+                new Participant("u-2", "User u-2", true)
+            );
+            assertThat(recovered.stream().map(ParticipantSession::roomId).distinct().toList()).containsExactly("r-1");
+        }
+    }
+
+    @Test
+    void shouldRekeyRecoveredSessionsOnEveryStart() throws IOException {
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(directory, 16, 1_000)) {
+            journal.append(RoomEvent.joined(session("r-1", "0", "u-1", false)));
+        }
+
+        String firstKey;
+        try (FileRoomEventJournal reopened = new FileRoomEventJournal(directory, 16, 1_000)) {
+            firstKey = reopened.recover().get(0).sessionId();
+        }
+
+        try (FileRoomEventJournal reopened = new FileRoomEventJournal(directory, 16, 1_000)) {
+            String secondKey = reopened.recover().get(0).sessionId();
+
+            assertThat(RoomEventJournal.isRecoveredSessionId(firstKey)).isTrue();
+            assertThat(secondKey).isNotEqualTo(firstKey);
+            assertThat(secondKey).endsWith(":0");
+            assertThat(secondKey.split(RoomEventJournal.RECOVERED_SESSION_PREFIX, -1).length).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldCompactIntoSnapshotAndStopAtCorruptOrTornRecords() throws IOException {
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(directory, 4, 10)) {
+            for (int index = 1; index <= 25; index++) {
+                journal.append(RoomEvent.joined(session("r-" + index % 3, "s-" + index, "u-" + index, false)));
+                if (index % 2 == 0) {
+                    journal.append(RoomEvent.left("r-" + index % 3, "s-" + index, new Participant("u-" + index, "User u-" + index, false)));
+                }
+            }
+        }
+        assertThat(segments()).hasSize(1);
+
+        // A complete record whose checksum does not match must not be applied.
+        byte[] ghost = FileRoomEventJournal.encodeEvent(RoomEvent.joined(session("r-1", "s-ghost", "u-ghost", false)));
+        appendToSegment(ByteBuffer.allocate(8 + ghost.length).putInt(ghost.length).putInt(checksum(ghost) ^ 1).put(ghost).array());
+        assertRecoveredOddUsers();
+
+        // A full header whose body was cut short by a crash must not be applied either.
+        byte[] torn = FileRoomEventJournal.encodeEvent(RoomEvent.joined(session("r-1", "s-torn", "u-torn", false)));
+        byte[] half = Arrays.copyOf(torn, torn.length / 2);
+        appendToSegment(ByteBuffer.allocate(8 + half.length).putInt(torn.length).putInt(checksum(torn)).put(half).array());
+        assertRecoveredOddUsers();
+    }
+
+    @Test
+    void shouldKeepLaterBatchesAfterAFailedWrite() throws IOException {
+        writeFourJoinsFailingTheSecond(1_000);
+
+        assertRecoveredUsers("u-1", "u-3", "u-4");
+    }
+
+    @Test
+    void shouldKeepFailedEventsOutOfTheNextSnapshot() throws IOException {
+        // Compacts right after s-3, so the snapshot shows exactly what the shadow state held.
+        writeFourJoinsFailingTheSecond(2);
+
+        assertRecoveredUsers("u-1", "u-3", "u-4");
+    }
+
+    private void writeFourJoinsFailingTheSecond(int snapshotEvery) throws IOException {
+        AtomicInteger segmentWrites = new AtomicInteger();
+        FileRoomEventJournal.SegmentOpener failSecondWrite = path -> new FailingChannel(
+            FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+            () -> segmentWrites.incrementAndGet() == 2
+        );
+
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(directory, 1, snapshotEvery, failSecondWrite)) {
+            for (int index = 1; index <= 4; index++) {
+                journal.append(RoomEvent.joined(session("r-1", "s-" + index, "u-" + index, false)));
+            }
+        }
+    }
+
+    private void assertRecoveredUsers(String... userIds) throws IOException {
+        try (FileRoomEventJournal reopened = new FileRoomEventJournal(directory, 1, 1_000)) {
+            assertThat(reopened.recover().stream().map(seat -> seat.participant().userId()).toList())
+                .containsExactly(userIds);
+        }
+    }
+
+    private void assertRecoveredOddUsers() throws IOException {
+        try (FileRoomEventJournal reopened = new FileRoomEventJournal(directory, 4, 10)) {
+            List<String> userIds = reopened.recover().stream().map(seat -> seat.participant().userId()).toList();
+
+            assertThat(userIds).hasSize(13);
+            assertThat(userIds.get(0)).isEqualTo("u-1");
+            assertThat(userIds.get(12)).isEqualTo("u-25");
+            assertThat(userIds).doesNotContain("u-ghost", "u-torn");
+        }
+    }
+
+    private void appendToSegment(byte[] bytes) throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        Files.write(segments.get(0), bytes, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(".log")).toList();
+        }
+    }
+
+    /**
+     * Writes half of the buffer and then fails, the way a full disk leaves a partial record behind.
+     */
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        private final BooleanSupplier failThisWrite;
+
+        private FailingChannel(FileChannel delegate, BooleanSupplier failThisWrite) {
+            this.delegate = delegate;
+            this.failThisWrite = failThisWrite;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            if (failThisWrite.getAsBoolean()) {
+                ByteBuffer half = source.slice();
+                half.limit(source.remaining() / 2);
+                delegate.write(half);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(source);
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            return delegate.read(destination);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+            return delegate.read(destinations, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+            return delegate.write(sources, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+            return delegate.transferFrom(source, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer destination, long position) throws IOException {
+            return delegate.read(destination, position);
+        }
+
+        @Override
+        public int write(ByteBuffer source, long position) throws IOException {
+            return delegate.write(source, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static ParticipantSession session(String roomId, String sessionId, String userId, boolean muted) {
+        return new ParticipantSession(roomId, sessionId, new Participant(userId, "User " + userId, muted));
+    }
+}
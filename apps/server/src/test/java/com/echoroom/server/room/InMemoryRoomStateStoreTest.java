@@ -3,6 +3,11 @@ package com.echoroom.server.room;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.echoroom.server.room.RoomModels.JoinResult;
+import com.echoroom.server.room.RoomModels.LeaveResult;
+import com.echoroom.server.room.RoomModels.Participant;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -11,11 +16,15 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class InMemoryRoomStateStoreTest {
 
     private final InMemoryRoomStateStore store = new InMemoryRoomStateStore();
 
+    @TempDir
+    Path journalDirectory;
+
     @Test
     void shouldRejectSixthParticipant() {
         IntStream.rangeClosed(1, 5).forEach(index -> {
@@ -81,4 +90,90 @@ class InMemoryRoomStateStoreTest {
             executor.shutdownNow();
         }
     }
+
+    @Test
+    void shouldRestoreRoomsFromJournalAndLetUsersReclaimSeats() throws IOException {
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(journalDirectory, 16, 100)) {
+            InMemoryRoomStateStore first = new InMemoryRoomStateStore(5, journal, List.of(), Duration.ofMinutes(1));
+            first.join("r-1", "s-1", "u-1", "User 1");
+            first.join("r-1", "s-2", "u-2", "User 2");
+            first.updateMuted("s-2", true);
+        }
+
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(journalDirectory, 16, 100)) {
+            InMemoryRoomStateStore restarted = new InMemoryRoomStateStore(5, journal, List.of(), Duration.ofMinutes(1));
+
+            assertThat(restarted.getSnapshot("r-1").orElseThrow().participants()).containsExactly(
+                new Participant("u-1", "User 1", false),
+                new Participant("u-2", "User 2", true)
+            );
+
+            JoinResult reclaimed = restarted.join("r-1", "s-new", "u-2", "User 2");
+
+            assertThat(reclaimed.accepted()).isTrue();
+            assertThat(restarted.findBySession("s-2")).isEmpty();
+            assertThat(reclaimed.snapshot().participants()).hasSize(2);
+        }
+    }
+
+    @Test
+    void shouldNotLetANewSocketWithAJournaledSessionIdTouchTheRecoveredSeat() throws IOException {
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(journalDirectory, 16, 100)) {
+            new InMemoryRoomStateStore(5, journal, List.of(), Duration.ofMinutes(1)).join("r-1", "s-1", "u-1", "User 1");
+        }
+
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(journalDirectory, 16, 100)) {
+            InMemoryRoomStateStore restarted = new InMemoryRoomStateStore(5, journal, List.of(), Duration.ofMinutes(1));
+
+            assertThat(restarted.findBySession("s-1")).isEmpty();
+            assertThat(restarted.updateMuted("s-1", true)).isEmpty();
+            assertThat(restarted.leaveBySession("s-1").left()).isFalse();
+
+            JoinResult joined = restarted.join("r-1", "s-1", "u-9", "User 9");
+
+            assertThat(joined.accepted()).isTrue();
+            assertThat(joined.snapshot().participants()).containsExactly(
+                new Participant("u-1", "User 1", false),
+                new Participant("u-9", "User 9", false)
+            );
+            assertThat(restarted.findBySession("s-1").orElseThrow().participant().userId()).isEqualTo("u-9");
+
+            restarted.leaveBySession("s-1");
+
+            assertThat(restarted.getSnapshot("r-1").orElseThrow().participants()).containsExactly(
+                new Participant("u-1", "User 1", false)
+            );
+        }
+    }
+
+    @Test
+    void shouldRejectJoinsUsingTheRecoveredSessionPrefix() {
+        JoinResult result = store.join("r-1", RoomEventJournal.RECOVERED_SESSION_PREFIX + "x:s-1", "u-1", "User 1");
+
+        assertThat(result.accepted()).isFalse();
+        assertThat(store.roomCount()).isZero();
+    }
+
+    @Test
+    void shouldReleaseUnclaimedRecoveredSeatsOnceTheGraceExpires() throws IOException {
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(journalDirectory, 16, 100)) {
+            InMemoryRoomStateStore first = new InMemoryRoomStateStore(5, journal, List.of(), Duration.ofMinutes(1));
+            first.join("r-1", "s-1", "u-1", "User 1");
+            first.join("r-1", "s-2", "u-2", "User 2");
+        }
+
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(journalDirectory, 16, 100)) {
+            InMemoryRoomStateStore restarted = new InMemoryRoomStateStore(5, journal, List.of(), Duration.ZERO);
+
+            List<LeaveResult> released = restarted.releaseExpiredRecoveredSeats();
+
+            assertThat(released.stream().map(result -> result.participant().userId()).toList()).containsExactly("u-1", "u-2");
+            assertThat(restarted.roomCount()).isZero();
+            assertThat(restarted.releaseExpiredRecoveredSeats()).isEmpty();
+        }
+
+        try (FileRoomEventJournal journal = new FileRoomEventJournal(journalDirectory, 16, 100)) {
+            assertThat(journal.recover()).isEmpty();
+        }
+    }
 }
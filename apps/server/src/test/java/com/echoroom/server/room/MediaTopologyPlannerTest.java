@@ -0,0 +1,122 @@
+package com.echoroom.server.room;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.echoroom.server.room.RoomModels.MediaTopology;
+import com.echoroom.server.room.RoomModels.Participant;
+import com.echoroom.server.room.RoomModels.RoomSnapshot;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MediaTopologyPlannerTest {
+
+    private final MediaTopologyPlanner planner = new MediaTopologyPlanner(4);
+
+    @BeforeEach
+    void setUp() {
+        planner.onRoomOpened("r-1");
+    }
+
+    @Test
+    void shouldUseMeshUpToLimitAndForwarderAbove() {
+        assertThat(planner.update("r-1", () -> room(4))).isEmpty();
+        assertThat(planner.current("r-1")).isEqualTo(MediaTopology.mesh());
+
+        planner.reportUplink("r-1", "u-3", 2_000);
+
+        assertThat(planner.update("r-1", () -> room(5))).isEqualTo(Optional.of(MediaTopology.forwarder("u-3").withVersion(1)));
+    }
+
+    @Test
+    void shouldKeepForwarderUnlessClearlyBeaten() {
+        planner.reportUplink("r-1", "u-1", 2_000);
+        planner.update("r-1", () -> room(6));
+
+        planner.reportUplink("r-1", "u-2", 2_200);
+        assertThat(planner.update("r-1", () -> room(6))).isEmpty();
+        assertThat(planner.current("r-1").forwarderUserId()).isEqualTo("u-1");
+
+        planner.reportUplink("r-1", "u-2", 3_000);
+        assertThat(planner.update("r-1", () -> room(6))).isEqualTo(Optional.of(MediaTopology.forwarder("u-2").withVersion(2)));
+    }
+
+    @Test
+    void shouldForgetRoomWhenClosed() {
+        planner.reportUplink("r-1", "u-1", 2_000);
+        planner.update("r-1", () -> room(6));
+
+        planner.onRoomClosed("r-1");
+
+        assertThat(planner.current("r-1")).isEqualTo(MediaTopology.mesh());
+        assertThat(planner.roomCount()).isZero();
+    }
+
+    @Test
+    void shouldNotRecreateStateForClosedRoom() {
+        planner.onRoomClosed("r-1");
+
+        planner.reportUplink("r-1", "u-1", 2_000);
+        assertThat(planner.update("r-1", () -> room(6))).isEmpty();
+
+        assertThat(planner.roomCount()).isZero();
+    }
+
+    @Test
+    void shouldDropUpdateThatRacesRoomClose() {
+        planner.reportUplink("r-1", "u-1", 2_000);
+
+        Optional<MediaTopology> change = planner.update("r-1", () -> {
+            planner.onRoomClosed("r-1");
+            return room(6);
+        });
+
+        assertThat(change).isEqualTo(Optional.of(MediaTopology.forwarder("u-1").withVersion(1)));
+        assertThat(planner.roomCount()).isZero();
+        assertThat(planner.current("r-1")).isEqualTo(MediaTopology.mesh());
+    }
+
+    @Test
+    void shouldNumberEveryChangeInARoom() {
+        planner.reportUplink("r-1", "u-1", 2_000);
+
+        assertThat(planner.update("r-1", () -> room(6)).orElseThrow().version()).isEqualTo(1);
+        assertThat(planner.update("r-1", () -> room(6))).isEmpty();
+        assertThat(planner.update("r-1", () -> room(3)).orElseThrow().version()).isEqualTo(2);
+        assertThat(planner.current("r-1")).isEqualTo(MediaTopology.mesh().withVersion(2));
+    }
+
+    @Test
+    void shouldNotBlockOtherRoomsWhileUpdating() throws Exception {
+        planner.onRoomOpened("r-2");
+        planner.reportUplink("r-2", "u-1", 2_000);
+        ExecutorService otherThread = Executors.newSingleThreadExecutor();
+        try {
+            Optional<MediaTopology> change = planner.update("r-1", () -> {
+                try {
+                    // r-1 is mid-update; an update to r-2 on another thread must still complete.
+                    assertThat(otherThread.submit(() -> planner.update("r-2", () -> room(6))).get(5, TimeUnit.SECONDS))
+                        .isEqualTo(Optional.of(MediaTopology.forwarder("u-1").withVersion(1)));
+                } catch (Exception error) {
+                    throw new AssertionError(error);
+                }
+                return room(3);
+            });
+            assertThat(change).isEmpty();
+        } finally {
+            otherThread.shutdownNow();
+        }
+    }
+
+    private static Optional<RoomSnapshot> room(int size) {
+        List<Participant> participants = IntStream.rangeClosed(1, size)
+            .mapToObj(index -> new Participant("u-" + index, "User " + index, false))
+            .toList();
+        return Optional.of(new RoomSnapshot("r-1", participants));
+    }
+}
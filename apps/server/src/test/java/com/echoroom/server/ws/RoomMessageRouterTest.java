@@ -2,25 +2,43 @@ package com.echoroom.server.ws;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.echoroom.server.ai.AIContextStore;
+import com.echoroom.server.ai.AIService;
+import com.echoroom.server.ai.AIService.AIContext;
+import com.echoroom.server.ai.AIService.AIReply;
+import com.echoroom.server.ai.AIService.AIRequest;
+import com.echoroom.server.ai.AIService.Exchange;
 import com.echoroom.server.ai.MockAIService;
+import com.echoroom.server.health.ServerLoadMetrics;
+import com.echoroom.server.health.ServerLoadMetrics.LoadSnapshot;
 import com.echoroom.server.room.InMemoryRoomStateStore;
+import com.echoroom.server.room.MediaTopologyPlanner;
+import com.echoroom.server.room.RoomEventJournal;
+import com.echoroom.server.room.RoomModels.Participant;
+import com.echoroom.server.room.RoomModels.ParticipantSession;
+import com.echoroom.server.room.RoomModels.RoomEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 class RoomMessageRouterTest {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong clockMillis = new AtomicLong(1_000_000L);
+    private InMemoryRoomStateStore store;
+    private ServerLoadMetrics loadMetrics;
     private RoomMessageRouter router;
 
     @BeforeEach
     void setUp() {
-        router = new RoomMessageRouter(new InMemoryRoomStateStore(), new MockAIService(), objectMapper);
+        router = routerWith(new MockAIService());
     }
 
     @Test
@@ -88,6 +106,53 @@ class RoomMessageRouterTest {
         assertThat(reply.path("payload").path("text").asText()).contains("hello");
     }
 
+    @Test
+    void shouldPassEarlierExchangesToTheNextAiRequest() throws JsonProcessingException {
+        List<AIRequest> requests = new CopyOnWriteArrayList<>();
+        router = routerWith(request -> {
+            requests.add(request);
+            return new AIReply("reply to " + request.prompt());
+        });
+        TestRoomSession a = join("s-a", "u-a");
+        TestRoomSession b = join("s-b", "u-b");
+
+        send(a, "ai_ping", Map.of("text", "first"));
+        send(b, "ai_ping", Map.of("text", "second"));
+
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(0).context()).isEqualTo(AIContext.EMPTY);
+        assertThat(requests.get(1).context().recentExchanges()).containsExactly(
+            new Exchange("u-a", "first", "reply to first")
+        );
+    }
+
+    @Test
+    void shouldNotHandALateReplyToTheNextGroupInTheSameRoom() throws JsonProcessingException {
+        List<AIRequest> requests = new CopyOnWriteArrayList<>();
+        String joinB = objectMapper.writeValueAsString(Map.of(
+            "type", "join_room",
+            "payload", Map.of("roomId", "r-topology", "userId", "u-b", "displayName", "B")
+        ));
+        router = routerWith(request -> {
+            requests.add(request);
+            if (requests.size() == 1) {
+                // The whole room leaves and someone else reopens it while the first call is running.
+                router.handleClose("s-a");
+                router.handleMessage("s-b", joinB);
+            }
+            return new AIReply("reply to " + request.prompt());
+        });
+        TestRoomSession a = join("s-a", "u-a");
+        TestRoomSession b = new TestRoomSession("s-b");
+        router.register(b);
+
+        send(a, "ai_ping", Map.of("text", "first"));
+        send(b, "ai_ping", Map.of("text", "second"));
+
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).context()).isEqualTo(AIContext.EMPTY);
+    }
+
     @Test
     void shouldBroadcastUserLeftOnClose() throws JsonProcessingException {
         TestRoomSession a = new TestRoomSession("s-a");
@@ -104,6 +169,142 @@ class RoomMessageRouterTest {
         assertThat(userLeft.path("payload").path("userId").asText()).isEqualTo("u-a");
     }
 
+    @Test
+    void shouldTrackLoadCounters() throws JsonProcessingException {
+        TestRoomSession a = new TestRoomSession("s-a");
+        TestRoomSession b = new TestRoomSession("s-b");
+        router.register(a);
+        router.register(b);
+
+        send(a, "join_room", Map.of("roomId", "r-load", "userId", "u-a", "displayName", "A"));
+        send(b, "join_room", Map.of("roomId", "r-other", "userId", "u-b", "displayName", "B"));
+        send(a, "ai_ping", Map.of("text", "hello"));
+
+        LoadSnapshot load = loadMetrics.snapshot();
+        assertThat(load.sessions()).isEqualTo(2);
+        assertThat(load.rooms()).isEqualTo(2);
+        assertThat(load.inboundFramesTotal()).isEqualTo(3);
+        assertThat(load.inFlightMessages()).isZero();
+        assertThat(load.outboundBacklog()).isZero();
+        assertThat(load.aiBacklog()).isZero();
+        assertThat(load.status()).isEqualTo("ok");
+
+        router.handleClose("s-a");
+
+        LoadSnapshot afterClose = loadMetrics.snapshot();
+        assertThat(afterClose.sessions()).isEqualTo(1);
+        assertThat(afterClose.rooms()).isEqualTo(1);
+
+        // A steady 4 frames per second, including the current second, reports exactly 4.
+        for (int second = 1; second <= 11; second++) {
+            clockMillis.addAndGet(1_000);
+            for (int frame = 0; frame < 4; frame++) {
+                send(b, "mute_state", Map.of("muted", frame % 2 == 0));
+            }
+        }
+        assertThat(loadMetrics.snapshot().inboundFramesPerSecond()).isEqualTo(4.0);
+    }
+
+    @Test
+    void shouldSwitchToForwarderTopologyAboveMeshSize() throws JsonProcessingException {
+        MediaTopologyPlanner planner = new MediaTopologyPlanner(3);
+        router = routerWith(8, planner, RoomEventJournal.NOOP, new MockAIService());
+
+        TestRoomSession a = join("s-a", "u-a");
+        TestRoomSession b = join("s-b", "u-b");
+        TestRoomSession c = join("s-c", "u-c");
+        assertThat(c.findType("room_snapshot").orElseThrow().path("payload").path("topology").path("mode").asText())
+            .isEqualTo("mesh");
+
+        send(b, "uplink_stats", Map.of("uplinkKbps", 4000));
+        send(c, "uplink_stats", Map.of("uplinkKbps", 900));
+        TestRoomSession d = join("s-d", "u-d");
+
+        JsonNode snapshotTopology = d.findType("room_snapshot").orElseThrow().path("payload").path("topology");
+        assertThat(snapshotTopology.path("mode").asText()).isEqualTo("forwarder");
+        assertThat(snapshotTopology.path("forwarderUserId").asText()).isEqualTo("u-b");
+        JsonNode pushed = a.findType("topology_changed").orElseThrow().path("payload").path("topology");
+        assertThat(pushed.path("forwarderUserId").asText()).isEqualTo("u-b");
+        assertThat(pushed.path("version").asLong()).isEqualTo(snapshotTopology.path("version").asLong());
+
+        router.handleClose("s-b");
+
+        JsonNode afterLeave = a.findType("topology_changed").orElseThrow().path("payload").path("topology");
+        assertThat(afterLeave.path("mode").asText()).isEqualTo("mesh");
+        assertThat(afterLeave.path("version").asLong()).isEqualTo(pushed.path("version").asLong() + 1);
+    }
+
+    @Test
+    void shouldBroadcastUserLeftWhenRecoveredSeatExpires() throws JsonProcessingException {
+        RoomEventJournal journal = new RoomEventJournal() {
+            @Override
+            public void append(RoomEvent event) {
+            }
+
+            @Override
+            public List<ParticipantSession> recover() {
+                return List.of(new ParticipantSession(
+                    "r-topology",
+                    RoomEventJournal.recoveredSessionId("epoch", "s-old"),
+                    new Participant("u-old", "Old", false)
+                ));
+            }
+        };
+        router = routerWith(5, new MediaTopologyPlanner(), journal, new MockAIService());
+
+        TestRoomSession a = join("s-a", "u-a");
+        assertThat(a.findType("room_snapshot").orElseThrow().path("payload").path("participants").size()).isEqualTo(2);
+
+        router.releaseExpiredRecoveredSeats();
+
+        JsonNode left = a.findType("user_left").orElseThrow();
+        assertThat(left.path("payload").path("userId").asText()).isEqualTo("u-old");
+        assertThat(store.getSnapshot("r-topology").orElseThrow().participants()).hasSize(1);
+    }
+
+    @Test
+    void shouldReplanOldRoomWhenSessionSwitchesRooms() throws JsonProcessingException {
+        MediaTopologyPlanner planner = new MediaTopologyPlanner(3);
+        router = routerWith(8, planner, RoomEventJournal.NOOP, new MockAIService());
+
+        TestRoomSession a = join("s-a", "u-a");
+        join("s-b", "u-b");
+        join("s-c", "u-c");
+        TestRoomSession d = join("s-d", "u-d");
+        send(d, "uplink_stats", Map.of("uplinkKbps", 5000));
+        assertThat(planner.current("r-topology").forwarderUserId()).isEqualTo("u-d");
+
+        send(d, "join_room", Map.of("roomId", "r-elsewhere", "userId", "u-d", "displayName", "u-d"));
+
+        assertThat(a.findType("user_left").orElseThrow().path("payload").path("userId").asText()).isEqualTo("u-d");
+        JsonNode topology = a.findType("topology_changed").orElseThrow().path("payload").path("topology");
+        assertThat(topology.path("mode").asText()).isEqualTo("mesh");
+        assertThat(d.findType("room_snapshot").orElseThrow().path("payload").path("roomId").asText()).isEqualTo("r-elsewhere");
+    }
+
+    private RoomMessageRouter routerWith(AIService aiService) {
+        return routerWith(5, new MediaTopologyPlanner(), RoomEventJournal.NOOP, aiService);
+    }
+
+    private RoomMessageRouter routerWith(
+        int maxRoomCapacity,
+        MediaTopologyPlanner planner,
+        RoomEventJournal journal,
+        AIService aiService
+    ) {
+        AIContextStore aiContextStore = new AIContextStore(8, 4000, 1000, Runnable::run);
+        store = new InMemoryRoomStateStore(maxRoomCapacity, journal, List.of(planner, aiContextStore), Duration.ZERO);
+        loadMetrics = new ServerLoadMetrics(store, 200, clockMillis::get);
+        return new RoomMessageRouter(store, planner, aiService, aiContextStore, objectMapper, loadMetrics, Runnable::run);
+    }
+
+    private TestRoomSession join(String sessionId, String userId) throws JsonProcessingException {
+        TestRoomSession session = new TestRoomSession(sessionId);
+        router.register(session);
+        send(session, "join_room", Map.of("roomId", "r-topology", "userId", userId, "displayName", userId));
+        return session;
+    }
+
     private void send(TestRoomSession session, String type, Map<String, Object> payload) throws JsonProcessingException {
         router.handleMessage(session.id(), objectMapper.writeValueAsString(Map.of(
             "type", type,
@@ -139,6 +340,10 @@ class RoomMessageRouterTest {
             }
         }
 
+        @Override
+        public void close() {
+        }
+
         private java.util.Optional<JsonNode> findType(String type) {
             return outbound.stream().filter(node -> type.equals(node.path("type").asText())).reduce((first, second) -> second);
         }
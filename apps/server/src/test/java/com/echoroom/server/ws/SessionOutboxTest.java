@@ -0,0 +1,175 @@
+package com.echoroom.server.ws;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.echoroom.server.health.ServerLoadMetrics;
+import com.echoroom.server.health.ServerLoadMetrics.LoadSnapshot;
+import com.echoroom.server.room.InMemoryRoomStateStore;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class SessionOutboxTest {
+
+    private final ServerLoadMetrics loadMetrics = new ServerLoadMetrics(new InMemoryRoomStateStore(), 200);
+
+    @Test
+    void shouldDeliverSignalingBeforePresenceAndAi() {
+        RecordingSession session = new RecordingSession();
+        SessionOutbox outbox = new SessionOutbox(session, loadMetrics, Runnable::run);
+        // Frames queued while the first send is still in progress, as a concurrent producer would.
+        session.onFirstSend = ignored -> {
+            outbox.enqueue("ai_reply", "ai-1");
+            outbox.enqueue("user_joined", "presence-1");
+            outbox.enqueue("signal_ice", "signal-1");
+            outbox.enqueue("signal_answer", "signal-2");
+        };
+
+        outbox.enqueue("user_muted", "first");
+
+        assertThat(session.sent).containsExactly("first", "signal-1", "signal-2", "presence-1", "ai-1");
+
+        LoadSnapshot load = loadMetrics.snapshot();
+        assertThat(load.outboundBacklog()).isZero();
+        assertThat(load.outboundQueueDelay().get("signaling").frames()).isEqualTo(2L);
+        assertThat(load.outboundQueueDelay().get("presence").frames()).isEqualTo(2L);
+        assertThat(load.outboundQueueDelay().get("ai").frames()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldNotStarveAiUnderSignalingBurst() {
+        RecordingSession session = new RecordingSession();
+        SessionOutbox outbox = new SessionOutbox(session, loadMetrics, Runnable::run);
+        session.onFirstSend = ignored -> {
+            outbox.enqueue("ai_reply", "ai-1");
+            for (int index = 1; index <= 20; index++) {
+                outbox.enqueue("signal_ice", "signal-" + index);
+            }
+        };
+
+        outbox.enqueue("signal_offer", "first");
+
+        assertThat(session.sent).hasSize(22);
+        assertThat(session.sent.indexOf("ai-1")).isLessThanOrEqualTo(SessionOutbox.MAX_SKIPS + 1);
+    }
+
+    @Test
+    void shouldDropOldestAiFramesWhenLaneIsFull() {
+        RecordingSession session = new RecordingSession();
+        SessionOutbox outbox = new SessionOutbox(session, loadMetrics, Runnable::run, 2);
+        session.onFirstSend = ignored -> {
+            for (int index = 1; index <= 4; index++) {
+                outbox.enqueue("ai_reply", "ai-" + index);
+            }
+        };
+
+        outbox.enqueue("signal_offer", "first");
+
+        assertThat(session.sent).containsExactly("first", "ai-3", "ai-4");
+        assertThat(session.closed).isFalse();
+        LoadSnapshot load = loadMetrics.snapshot();
+        assertThat(load.outboundBacklog()).isZero();
+        assertThat(load.outboundDropped().get("ai")).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldCloseSessionWhenPresenceLaneOverflows() {
+        RecordingSession session = new RecordingSession();
+        SessionOutbox outbox = new SessionOutbox(session, loadMetrics, Runnable::run, 2);
+        session.onFirstSend = ignored -> {
+            outbox.enqueue("user_joined", "joined-u-2");
+            outbox.enqueue("user_joined", "joined-u-3");
+            outbox.enqueue("user_left", "left-u-2");
+        };
+
+        outbox.enqueue("room_snapshot", "first");
+
+        assertThat(session.closed).isTrue();
+        assertThat(session.sent).containsExactly("first");
+        LoadSnapshot load = loadMetrics.snapshot();
+        assertThat(load.outboundBacklog()).isZero();
+        assertThat(load.outboundDropped().get("presence")).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldCloseSessionWhenSignalingLaneOverflows() {
+        RecordingSession session = new RecordingSession();
+        SessionOutbox outbox = new SessionOutbox(session, loadMetrics, Runnable::run, 2);
+        session.onFirstSend = ignored -> {
+            outbox.enqueue("user_joined", "presence-1");
+            for (int index = 1; index <= 3; index++) {
+                outbox.enqueue("signal_ice", "signal-" + index);
+            }
+            outbox.enqueue("signal_ice", "after-close");
+        };
+
+        outbox.enqueue("signal_offer", "first");
+
+        assertThat(session.closed).isTrue();
+        assertThat(session.sent).containsExactly("first");
+        LoadSnapshot load = loadMetrics.snapshot();
+        assertThat(load.outboundBacklog()).isZero();
+        assertThat(load.outboundDropped().get("signaling")).isEqualTo(4L);
+        assertThat(load.outboundDropped().get("presence")).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldHandOffTheRestOfALongDrainToTheExecutor() {
+        RecordingSession session = new RecordingSession();
+        ArrayDeque<Runnable> handedOff = new ArrayDeque<>();
+        SessionOutbox outbox = new SessionOutbox(session, loadMetrics, handedOff::add);
+        session.onFirstSend = ignored -> {
+            for (int index = 1; index <= 40; index++) {
+                outbox.enqueue("signal_ice", "signal-" + index);
+            }
+        };
+
+        outbox.enqueue("signal_offer", "first");
+
+        assertThat(session.sent).hasSize(SessionOutbox.MAX_FRAMES_PER_DRAIN);
+        assertThat(handedOff).hasSize(1);
+
+        // A producer arriving meanwhile only enqueues; the handed-off drain sends its frame in order.
+        outbox.enqueue("signal_ice", "signal-41");
+        assertThat(session.sent).hasSize(SessionOutbox.MAX_FRAMES_PER_DRAIN);
+
+        while (!handedOff.isEmpty()) {
+            handedOff.removeFirst().run();
+        }
+        assertThat(session.sent).hasSize(42);
+        assertThat(session.sent.get(41)).isEqualTo("signal-41");
+        assertThat(loadMetrics.snapshot().outboundBacklog()).isZero();
+    }
+
+    private static final class RecordingSession implements RoomSession {
+
+        private final List<String> sent = new ArrayList<>();
+        private Consumer<String> onFirstSend = ignored -> { };
+        private boolean closed;
+
+        @Override
+        public String id() {
+            return "s-outbox";
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void send(String text) {
+            sent.add(text);
+            if (sent.size() == 1) {
+                onFirstSend.accept(text);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -5,6 +5,7 @@ export type ClientMessageType =
   | "signal_answer"
   | "signal_ice"
   | "mute_state"
+  | "uplink_stats"
   | "ai_ping";
 
 export type ServerMessageType =
@@ -15,6 +16,7 @@ export type ServerMessageType =
   | "signal_answer"
   | "signal_ice"
   | "user_muted"
+  | "topology_changed"
   | "ai_reply"
   | "error";
 
@@ -50,14 +52,26 @@ export interface MuteStatePayload {
   muted: boolean;
 }
 
+export interface UplinkStatsPayload {
+  uplinkKbps: number;
+}
+
 export interface AiPingPayload {
   text: string;
 }
 
+export type MediaTopologyMode = "mesh" | "forwarder";
+
+export interface MediaTopologyPayload {
+  mode: MediaTopologyMode;
+  forwarderUserId: string | null;
+}
+
 export interface RoomSnapshotPayload {
   roomId: string;
   selfUserId: string;
   participants: ParticipantPayload[];
+  topology: MediaTopologyPayload;
 }
 
 export interface UserJoinedPayload {
@@ -76,6 +90,11 @@ export interface UserMutedPayload {
   muted: boolean;
 }
 
+export interface TopologyChangedPayload {
+  roomId: string;
+  topology: MediaTopologyPayload;
+}
+
 export interface AiReplyPayload {
   roomId: string;
   text: string;
@@ -93,6 +112,7 @@ export type ClientMessage =
   | WsMessage<"signal_answer", SignalPayload>
   | WsMessage<"signal_ice", SignalPayload>
   | WsMessage<"mute_state", MuteStatePayload>
+  | WsMessage<"uplink_stats", UplinkStatsPayload>
   | WsMessage<"ai_ping", AiPingPayload>;
 
 export type ServerMessage =
@@ -103,6 +123,7 @@ export type ServerMessage =
   | WsMessage<"signal_answer", SignalPayload>
   | WsMessage<"signal_ice", SignalPayload>
   | WsMessage<"user_muted", UserMutedPayload>
+  | WsMessage<"topology_changed", TopologyChangedPayload>
   | WsMessage<"ai_reply", AiReplyPayload>
   | WsMessage<"error", ErrorPayload>;
 